@@ -0,0 +1,138 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Creates the classpath resource of {@link ChebyshevSolarModel} by fitting Chebyshev polynomials to the
+ * NOAA model, and prints the maximum error of the table against the NOAA model.
+ * <p>
+ * Not part of the library, run it with gradle ephemeris.
+ */
+final class EphemerisGenerator {
+    /**
+     * 1900-01-01 0:00 UT
+     */
+    private static final double FIRST = 2415020.5;
+    /**
+     * 2101-01-01 0:00 UT
+     */
+    private static final double LAST = 2488434.5;
+    private static final int SEGMENT_DAYS = 64;
+    private static final int DEGREE = 10;
+
+    private static final double RAD = Math.PI / 180;
+
+    private EphemerisGenerator() {
+    }
+
+    /**
+     * the values which are approximated, the right ascension is stored as difference to the mean longitude,
+     * which is smooth
+     */
+    private static void values(double jd, double[] position, double[] values) {
+        SolarModel.NOAA.compute(jd, position);
+        values[ChebyshevSolarModel.SERIES_SIN_DECL] = Math.sin(position[SolarModel.DECLINATION]);
+        values[ChebyshevSolarModel.SERIES_EQT] = position[SolarModel.EQUATION_OF_TIME];
+        double r = ChebyshevSolarModel.meanLongitude(jd) - position[SolarModel.RIGHT_ASCENSION];
+        values[ChebyshevSolarModel.SERIES_RA] = r - 2 * Math.PI * Math.floor(r / (2 * Math.PI) + 0.5);
+    }
+
+    /**
+     * fit the coefficients at the Chebyshev nodes
+     */
+    private static float[] fit(double first, int segmentDays, int segments, int degree) {
+        int n = degree + 1;
+        float[] coefficients = new float[segments * ChebyshevSolarModel.SERIES * n];
+        double[] position = new double[3];
+        double[][] values = new double[n][ChebyshevSolarModel.SERIES];
+        for (int s = 0; s < segments; s++) {
+            double start = first + (double) s * segmentDays;
+            for (int j = 0; j < n; j++) {
+                double x = Math.cos(Math.PI * (j + 0.5) / n);
+                values(start + (x + 1) / 2 * segmentDays, position, values[j]);
+            }
+            for (int series = 0; series < ChebyshevSolarModel.SERIES; series++) {
+                for (int k = 0; k < n; k++) {
+                    double sum = 0;
+                    for (int j = 0; j < n; j++) {
+                        sum += values[j][series] * Math.cos(Math.PI * k * (j + 0.5) / n);
+                    }
+                    coefficients[(s * ChebyshevSolarModel.SERIES + series) * n + k] = (float) ((k == 0 ? 1.0 : 2.0) / n * sum);
+                }
+            }
+        }
+        return coefficients;
+    }
+
+    /**
+     * @return the table in the file format
+     */
+    private static byte[] write(ChebyshevSolarModel.Table table) {
+        ByteBuffer buffer = ByteBuffer.allocate(ChebyshevSolarModel.HEADER_SIZE + table.coefficients.length * 4).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(ChebyshevSolarModel.MAGIC).putInt(ChebyshevSolarModel.VERSION).putDouble(table.first).putInt(table.segmentDays)
+                .putInt(table.segments).putInt(table.degree).putInt(0);
+        for (float c : table.coefficients) {
+            buffer.putFloat(c);
+        }
+        return buffer.array();
+    }
+
+    /**
+     * creates the resource and prints the maximum error against the SolarModel.NOAA model
+     *
+     * @param args path of the resource
+     * @throws IOException if the file can not be written
+     */
+    public static void main(String[] args) throws IOException {
+        int segments = (int) Math.ceil((LAST - FIRST) / SEGMENT_DAYS);
+        ChebyshevSolarModel.Table table = new ChebyshevSolarModel.Table(FIRST, SEGMENT_DAYS, segments, DEGREE, fit(FIRST, SEGMENT_DAYS, segments, DEGREE));
+        byte[] data = write(table);
+        Files.write(Paths.get(args[0]), data);
+
+        // every 10 minutes, at the nodes the error is smallest
+        double[] position = new double[3];
+        double[] expected = new double[ChebyshevSolarModel.SERIES];
+        double[] actual = new double[ChebyshevSolarModel.SERIES];
+        double[] error = new double[ChebyshevSolarModel.SERIES];
+        for (double jd = FIRST; jd < LAST; jd += 1 / 144.0) {
+            values(jd, position, expected);
+            int base = ChebyshevSolarModel.segment(table, jd);
+            double x = ChebyshevSolarModel.argument(table, jd);
+            for (int series = 0; series < ChebyshevSolarModel.SERIES; series++) {
+                actual[series] = ChebyshevSolarModel.series(table, base + series * (DEGREE + 1), x);
+                error[series] = Math.max(error[series], Math.abs(actual[series] - expected[series]));
+            }
+        }
+        System.out.printf("%d bytes, %d segments of %d days, degree %d%n", data.length, segments, SEGMENT_DAYS, DEGREE);
+        System.out.printf("max error: declination %.4f\", equation of time %.4f s, right ascension %.4f\"%n",
+                error[ChebyshevSolarModel.SERIES_SIN_DECL] / RAD * 3600 / Math.cos(23.44 * RAD), error[ChebyshevSolarModel.SERIES_EQT] * 3600,
+                error[ChebyshevSolarModel.SERIES_RA] / RAD * 3600);
+    }
+}
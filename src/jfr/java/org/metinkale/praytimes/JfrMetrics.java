@@ -0,0 +1,152 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link Metrics}, which emit Java Flight Recorder events
+ * <p>
+ * Needs a JVM with JFR (JDK 11 or later, or JDK 8u272 or later). The frequent events (calculations, cache
+ * lookups and qibla searches) are disabled by default and can be enabled in the recording settings, e.g.
+ * {@code jfr configure +org.metinkale.praytimes.Compute#enabled=true}. Missing times and high latitude
+ * adjustments are enabled by default.
+ * <p>
+ * Usage: {@code Instrumentation.setMetrics(new JfrMetrics())}
+ */
+@SuppressWarnings("WeakerAccess")
+public final class JfrMetrics implements Metrics {
+
+    @Override
+    public void onCompute(int mask, int count, long nanos) {
+        ComputeEvent event = new ComputeEvent();
+        if (event.isEnabled()) {
+            event.mask = mask;
+            event.count = count;
+            event.nanos = nanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onMissingTime(int time) {
+        MissingTimeEvent event = new MissingTimeEvent();
+        if (event.isEnabled()) {
+            event.time = time;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onHighLatsAdjustment(int time) {
+        HighLatsAdjustmentEvent event = new HighLatsAdjustmentEvent();
+        if (event.isEnabled()) {
+            event.time = time;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onCacheLookup(int cache, boolean hit) {
+        CacheLookupEvent event = new CacheLookupEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onQiblaSearch(int iterations, boolean found) {
+        QiblaSearchEvent event = new QiblaSearchEvent();
+        if (event.isEnabled()) {
+            event.iterations = iterations;
+            event.found = found;
+            event.commit();
+        }
+    }
+
+    @Name("org.metinkale.praytimes.Compute")
+    @Label("Prayer Times Calculation")
+    @Category("PrayTimes")
+    @Enabled(false)
+    static final class ComputeEvent extends Event {
+        @Label("Times")
+        @Description("calculated times, bit 1 << TIMES_ from Constants")
+        int mask;
+        @Label("Days")
+        @Description("number of calculated days or locations")
+        int count;
+        @Label("Calculation Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+    }
+
+    @Name("org.metinkale.praytimes.MissingTime")
+    @Label("Missing Prayer Time")
+    @Category("PrayTimes")
+    static final class MissingTimeEvent extends Event {
+        @Label("Time")
+        @Description("TIMES_ from Constants")
+        int time;
+    }
+
+    @Name("org.metinkale.praytimes.HighLatsAdjustment")
+    @Label("High Latitude Adjustment")
+    @Category("PrayTimes")
+    static final class HighLatsAdjustmentEvent extends Event {
+        @Label("Time")
+        @Description("TIMES_ from Constants")
+        int time;
+    }
+
+    @Name("org.metinkale.praytimes.CacheLookup")
+    @Label("Cache Lookup")
+    @Category("PrayTimes")
+    @Enabled(false)
+    static final class CacheLookupEvent extends Event {
+        @Label("Cache")
+        @Description("CACHE_ from Metrics")
+        int cache;
+        @Label("Hit")
+        boolean hit;
+    }
+
+    @Name("org.metinkale.praytimes.QiblaSearch")
+    @Label("Qibla Time Search")
+    @Category("PrayTimes")
+    @Enabled(false)
+    static final class QiblaSearchEvent extends Event {
+        @Label("Iterations")
+        int iterations;
+        @Label("Found")
+        boolean found;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link BulkCalculator}, compare the parallelism values to see the scaling across cores
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkCalculatorBenchmark {
+    private static final int LOCATIONS = 1000;
+    private static final int DAYS = 30;
+    private static final int SWEEP = 100000;
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    private BulkCalculator bulk;
+    private PrayTimesCalculator calculator;
+    private double[] lat;
+    private double[] lng;
+    private int[] minutes;
+    private double[] sweepLat;
+    private double[] sweepLng;
+    private double[][] sweepTimes;
+
+    @Setup
+    public void setup() {
+        bulk = new BulkCalculator(parallelism);
+        calculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .build();
+        lat = new double[LOCATIONS];
+        lng = new double[LOCATIONS];
+        for (int i = 0; i < LOCATIONS; i++) {
+            lat[i] = 30 + i * 0.02;
+            lng[i] = i * 0.03;
+        }
+        minutes = new int[LOCATIONS * DAYS * 12];
+
+        sweepLat = new double[SWEEP];
+        sweepLng = new double[SWEEP];
+        for (int i = 0; i < SWEEP; i++) {
+            sweepLat[i] = -60 + (i % 1000) * 0.12;
+            sweepLng[i] = -180 + (i / 1000) * 3.6;
+        }
+        sweepTimes = new double[12][SWEEP];
+    }
+
+    @TearDown
+    public void tearDown() {
+        bulk.close();
+    }
+
+    /**
+     * 1000 locations x 30 days
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] computeRange() {
+        bulk.computeRange(calculator, lat, lng, null, 2017, 1, 1, DAYS, minutes);
+        return minutes;
+    }
+
+    /**
+     * one day for 100000 locations with the struct-of-arrays kernel
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[][] computeLocations() {
+        bulk.computeLocations(calculator, sweepLat, sweepLng, null, 2017, 1, 1, sweepTimes);
+        return sweepTimes;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the degree based trigonometric functions of {@link DMath} and {@link FastDMath}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DMathBenchmark {
+    // not final, so the JIT can not fold the calls
+    public double angle = 52.5;
+    public double ratio = 0.3;
+
+    @Benchmark
+    public double sin() {
+        return DMath.sin(angle);
+    }
+
+    @Benchmark
+    public double cos() {
+        return DMath.cos(angle);
+    }
+
+    @Benchmark
+    public double tan() {
+        return DMath.tan(angle);
+    }
+
+    @Benchmark
+    public double arcsin() {
+        return DMath.arcsin(ratio);
+    }
+
+    @Benchmark
+    public double arccos() {
+        return DMath.arccos(ratio);
+    }
+
+    @Benchmark
+    public double arccot() {
+        return DMath.arccot(ratio);
+    }
+
+    @Benchmark
+    public double arctan2() {
+        return DMath.arctan2(ratio, angle);
+    }
+
+    @Benchmark
+    public double fastSin() {
+        return FastDMath.sin(angle);
+    }
+
+    @Benchmark
+    public double fastCos() {
+        return FastDMath.cos(angle);
+    }
+
+    @Benchmark
+    public double fastTan() {
+        return FastDMath.tan(angle);
+    }
+
+    @Benchmark
+    public double fastArcsin() {
+        return FastDMath.arcsin(ratio);
+    }
+
+    @Benchmark
+    public double fastArccos() {
+        return FastDMath.arccos(ratio);
+    }
+
+    @Benchmark
+    public double fastArccot() {
+        return FastDMath.arccot(ratio);
+    }
+
+    @Benchmark
+    public double fixAngle() {
+        return DMath.fixAngle(angle * 17);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the prayer time calculation of {@link PrayTimes}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrayTimesBenchmark {
+
+    @Param({"MWL", "ISNA", "Egypt", "Makkah", "Karachi", "Tehran", "Jafari"})
+    public Method method;
+
+    @Param({"0", "1", "2", "3"})
+    public int highLats;
+
+    private PrayTimes pt;
+    private int day;
+    private final int[] minutes = new int[12];
+
+    @Setup
+    public void setup() {
+        pt = new PrayTimes();
+        pt.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
+        pt.setMethod(method);
+        pt.setHighLatsAdjustment(highLats);
+        pt.setDate(2017, 6, 11);
+        pt.setCoordinates(52, 10, 0);
+    }
+
+    /**
+     * one full calculation of a single day, setCoordinates is used to clear the cached times
+     *
+     * @return Isha
+     */
+    @Benchmark
+    public String singleDay() {
+        pt.setCoordinates(52, 10, 0);
+        return pt.getTime(Constants.TIMES_ISHA);
+    }
+
+    /**
+     * one calculation at a high latitude, where the adjustment for higher latitudes kicks in
+     *
+     * @return Isha
+     */
+    @Benchmark
+    public String highLatitude() {
+        pt.setCoordinates(64, -21, 0);
+        return pt.getTime(Constants.TIMES_ISHA);
+    }
+
+    /**
+     * a cold setDate and getTime cycle, moving through the year day by day
+     *
+     * @return Fajr
+     */
+    @Benchmark
+    public String setDateGetTime() {
+        day = day % 365 + 1;
+        pt.setDate(2017, day / 31 + 1, day % 28 + 1);
+        return pt.getTime(Constants.TIMES_FAJR);
+    }
+
+    /**
+     * all 12 times of one day, like a timetable row
+     *
+     * @return sum of the string lengths
+     */
+    @Benchmark
+    public int allTimes() {
+        pt.setCoordinates(52, 10, 0);
+        int len = 0;
+        for (int i = 0; i <= Constants.TIMES_MIDNIGHT; i++) {
+            len += pt.getTime(i).length();
+        }
+        return len;
+    }
+
+    /**
+     * all 12 times of one day as minutes of day, without creating Strings
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] allTimesInMinutes() {
+        pt.setCoordinates(52, 10, 0);
+        pt.getTimesInMinutes(minutes);
+        return minutes;
+    }
+}
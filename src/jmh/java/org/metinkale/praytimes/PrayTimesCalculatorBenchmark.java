@@ -0,0 +1,373 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link PrayTimesCalculator}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrayTimesCalculatorBenchmark {
+    private static final int PRAYERS = PrayTimesCalculator.mask(Constants.TIMES_FAJR, Constants.TIMES_DHUHR,
+            Constants.TIMES_ASR, Constants.TIMES_MAGHRIB, Constants.TIMES_ISHA);
+
+    private PrayTimesCalculator calculator;
+    private PrayTimesCalculator cachedCalculator;
+    private PrayTimesCalculator resultCachedCalculator;
+    private PrayTimesCalculator refinedCalculator;
+    private PrayTimesCalculator fastCalculator;
+    private PrayTimesCalculator fastCachedCalculator;
+    private PrayTimesCalculator noaaCalculator;
+    private PrayTimesGrid grid;
+    private int location;
+    private double[] times;
+    private int[] minutes;
+    private double[] year;
+    private int[] yearMinutes;
+    private double[] lats;
+    private double[] lngs;
+    private double[][] locationTimes;
+    private PrayerTimeline timeline;
+    private long now;
+
+    @Setup
+    public void setup() {
+        calculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .build();
+        cachedCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setEphemerisCache(new EphemerisCache())
+                .build();
+        resultCachedCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setResultCache(new ResultCache(10000))
+                .build();
+        refinedCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setRefinement(5, 0.01)
+                .build();
+        fastCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setFastMath(true)
+                .build();
+        fastCachedCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setFastMath(true)
+                .setEphemerisCache(new EphemerisCache())
+                .build();
+        noaaCalculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setMethod(Method.MWL)
+                .setSolarModel(SolarModel.NOAA)
+                .build();
+        grid = new PrayTimesGrid(calculator, 0, 2017, 6, 11, 30, 0, 40, 20, 1, 10);
+        times = new double[12];
+        minutes = new int[12];
+        year = new double[366 * 12];
+        yearMinutes = new int[366 * 12];
+        lats = new double[10000];
+        lngs = new double[10000];
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = 30 + i * 0.002;
+            lngs[i] = i * 0.003;
+        }
+        locationTimes = new double[12][lats.length];
+        timeline = new PrayerTimeline(calculator, 52, 10, 0);
+        now = 1483228800000L; // 2017-01-01T00:00Z
+    }
+
+    /**
+     * one day into a reused array
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] compute() {
+        calculator.compute(52, 10, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day into a reused array with a {@link MetricsRecorder}, compare with {@link #compute()}
+     *
+     * @param metrics installs the metrics
+     * @return times
+     */
+    @Benchmark
+    public double[] computeWithMetrics(Instrumented metrics) {
+        calculator.compute(52, 10, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day refined until the times change by less than 0.01 seconds, compare with {@link #compute()}
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computeRefined() {
+        refinedCalculator.compute(52, 10, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day with {@link FastDMath}, compare with {@link #compute()}
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computeFastMath() {
+        fastCalculator.compute(52, 10, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * only fajr of one day into a reused array
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computeFajr() {
+        calculator.compute(52, 10, 0, 2017, 6, 11, 1 << Constants.TIMES_FAJR, times);
+        return times;
+    }
+
+    /**
+     * only the five prayers of one day into a reused array
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computePrayers() {
+        calculator.compute(52, 10, 0, 2017, 6, 11, PRAYERS, times);
+        return times;
+    }
+
+    /**
+     * one day of 1000 changing locations, which are all in the result cache
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computeResultCached() {
+        location = (location + 1) % 1000;
+        resultCachedCalculator.compute(30 + location * 0.01, location * 0.01, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day as minutes of day into a reused array
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] computeMinutes() {
+        calculator.computeMinutes(52, 10, 0, 2017, 6, 11, minutes);
+        return minutes;
+    }
+
+    /**
+     * one day as minutes of day with {@link SolarModel#NOAA}, which is called through the interface,
+     * allocates nothing like {@link #computeMinutes()}
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] computeMinutesNoaa() {
+        noaaCalculator.computeMinutes(52, 10, 0, 2017, 6, 11, minutes);
+        return minutes;
+    }
+
+    /**
+     * one day for changing locations, without a sun position cache
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] manyLocations() {
+        location = (location + 1) % 1000;
+        calculator.compute(40 + location * 0.01, location * 0.02, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day for changing locations, with a shared sun position cache
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] manyLocationsCached() {
+        location = (location + 1) % 1000;
+        cachedCalculator.compute(40 + location * 0.01, location * 0.02, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * one day for changing locations, interpolated from a precomputed grid
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] manyLocationsGrid() {
+        location = (location + 1) % 1000;
+        grid.getTimes(30 + location * 0.01, location * 0.02, times);
+        return times;
+    }
+
+    /**
+     * a whole year as hours
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] computeYear() {
+        calculator.computeYear(52, 10, 0, 2017, year);
+        return year;
+    }
+
+    /**
+     * a whole year as minutes of day
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] computeYearMinutes() {
+        calculator.computeYear(52, 10, 0, 2017, yearMinutes);
+        return yearMinutes;
+    }
+
+    /**
+     * one day for 10000 locations, calling compute for each location
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] locationsEach() {
+        for (int i = 0; i < lats.length; i++) {
+            calculator.compute(lats[i], lngs[i], 0, 2017, 6, 11, times);
+        }
+        return times;
+    }
+
+    /**
+     * one day for 10000 locations with the struct-of-arrays kernel
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[][] locationsKernel() {
+        calculator.computeLocations(lats, lngs, null, 2017, 6, 11, locationTimes);
+        return locationTimes;
+    }
+
+    /**
+     * one day for 10000 locations with the struct-of-arrays kernel and a shared sun position cache
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[][] locationsKernelCached() {
+        cachedCalculator.computeLocations(lats, lngs, null, 2017, 6, 11, locationTimes);
+        return locationTimes;
+    }
+
+    /**
+     * one day for 10000 locations with the vectorized loops of the struct-of-arrays kernel,
+     * compare with {@link #locationsKernel()} and with -jvmArgsAppend -XX:-UseSuperWord,
+     * which disables the vectorizer
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[][] locationsKernelFastMath() {
+        fastCalculator.computeLocations(lats, lngs, null, 2017, 6, 11, locationTimes);
+        return locationTimes;
+    }
+
+    /**
+     * like {@link #locationsKernelFastMath()}, the vectorized loops fit the sun once per day
+     * and do not use the cache, so the times should be the same
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[][] locationsKernelCachedFastMath() {
+        fastCachedCalculator.computeLocations(lats, lngs, null, 2017, 6, 11, locationTimes);
+        return locationTimes;
+    }
+
+    /**
+     * stepping from one prayer time to the next one, a day is calculated every 6 steps
+     *
+     * @return next prayer time
+     */
+    @Benchmark
+    public PrayerEvent nextPrayer() {
+        PrayerEvent next = timeline.next(now);
+        now = next.getEpochMillis();
+        return next;
+    }
+
+    /**
+     * enables the instrumentation for the benchmarks using this state
+     */
+    @State(Scope.Benchmark)
+    public static class Instrumented {
+        @Setup
+        public void setup() {
+            Instrumentation.setMetrics(new MetricsRecorder());
+        }
+
+        @TearDown
+        public void tearDown() {
+            Instrumentation.setMetrics(null);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for {@link PrayerScheduler}, fires one day of prayer times for many subscribers
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PrayerSchedulerBenchmark {
+    private static final long START = 1483228800000L; // 2017-01-01T00:00:00Z
+
+    @Param({"10000", "100000"})
+    public int subscribers;
+
+    private PrayerScheduler scheduler;
+    private long now;
+    private long fired;
+
+    @Setup
+    public void setup() {
+        PrayTimesCalculator calculator = new PrayTimesCalculator.Builder().build();
+        scheduler = new PrayerScheduler(new PrayerScheduler.Listener() {
+            @Override
+            public void onPrayerTime(int subscriber, int time, long epochMillis) {
+                fired++;
+            }
+        }, START, subscribers);
+        long seed = 42;
+        for (int i = 0; i < subscribers; i++) {
+            seed = seed * 6364136223846793005L + 1442695040888963407L;
+            double lat = ((seed >>> 11) % 12000) / 100.0 - 60;
+            double lng = ((seed >>> 35) % 36000) / 100.0 - 180;
+            scheduler.add(calculator, lat, lng, 0);
+        }
+        now = START;
+    }
+
+    /**
+     * advances the scheduler by one day, minute by minute
+     *
+     * @return number of fired events
+     */
+    @Benchmark
+    public long advanceDay() {
+        for (int i = 0; i < 1440; i++) {
+            now += 60000;
+            scheduler.advance(now);
+        }
+        return fired;
+    }
+}
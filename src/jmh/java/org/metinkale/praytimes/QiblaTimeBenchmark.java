@@ -0,0 +1,103 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the Qibla time calculation
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QiblaTimeBenchmark {
+    private PrayTimes pt;
+    private PrayTimesCalculator calculator;
+    private long noon;
+    private int[] year;
+
+    @Setup
+    public void setup() {
+        TimeZone tz = TimeZone.getTimeZone("Europe/Berlin");
+        pt = new PrayTimes();
+        pt.setTimezone(tz);
+        pt.setDate(2017, 6, 11);
+        pt.setCoordinates(52, 10, 0);
+
+        calculator = new PrayTimesCalculator.Builder().setTimezone(tz).build();
+        year = new int[366 * PrayTimesCalculator.QIBLA_COUNT];
+
+        Calendar cal = Calendar.getInstance(tz);
+        cal.set(2017, 5, 11, 12, 0, 0);
+        noon = cal.getTimeInMillis();
+    }
+
+    /**
+     * all four qibla times of a day, setCoordinates is used to clear the cached times
+     *
+     * @return qibla times
+     */
+    @Benchmark
+    public QiblaTime getQiblaTime() {
+        pt.setCoordinates(52, 10, 0);
+        return pt.getQiblaTime();
+    }
+
+    /**
+     * a single search for the front qibla time
+     *
+     * @return time
+     */
+    @Benchmark
+    public long findQiblaTime() {
+        return QiblaTimeCalculator.findQiblaTime(noon, 52, 10, 0);
+    }
+
+    /**
+     * qibla times of a whole year as minutes of day
+     *
+     * @return qibla times
+     */
+    @Benchmark
+    public int[] computeQiblaYear() {
+        calculator.computeQiblaRange(52, 10, 0, 2017, 1, 1, 365, year);
+        return year;
+    }
+}
@@ -0,0 +1,116 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the sun models side by side, to compare their cost with their accuracy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SolarModelBenchmark {
+    @Param({"USNO", "NOAA", "CHEBYSHEV"})
+    public String model;
+
+    private SolarModel solarModel;
+    private PrayTimesCalculator calculator;
+    private double[] position;
+    private double[] times;
+    private int[] qibla;
+    private double jd;
+
+    @Setup
+    public void setup() {
+        switch (model) {
+            case "NOAA":
+                solarModel = SolarModel.NOAA;
+                break;
+            case "CHEBYSHEV":
+                solarModel = SolarModel.CHEBYSHEV;
+                break;
+            default:
+                solarModel = SolarModel.USNO;
+        }
+        calculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .setSolarModel(solarModel)
+                .build();
+        position = new double[3];
+        times = new double[PrayTimesCalculator.TIMES_COUNT];
+        qibla = new int[366 * PrayTimesCalculator.QIBLA_COUNT];
+        jd = 2457916.0;
+    }
+
+    /**
+     * a single evaluation of the sun model, the julian date changes to avoid constant folding
+     *
+     * @return sun position
+     */
+    @Benchmark
+    public double[] sunPosition() {
+        jd += 0.001;
+        solarModel.compute(jd, position);
+        return position;
+    }
+
+    /**
+     * all times of a single day
+     *
+     * @return times
+     */
+    @Benchmark
+    public double[] compute() {
+        calculator.compute(52, 10, 0, 2017, 6, 11, times);
+        return times;
+    }
+
+    /**
+     * qibla times of a whole year as minutes of day
+     *
+     * @return qibla times
+     */
+    @Benchmark
+    public int[] computeQiblaYear() {
+        calculator.computeQiblaRange(52, 10, 0, 2017, 1, 1, 365, qibla);
+        return qibla;
+    }
+}
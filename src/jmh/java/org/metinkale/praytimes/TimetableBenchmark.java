@@ -0,0 +1,153 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for {@link TimetableReader} and {@link TimetableExporter}
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimetableBenchmark {
+    private static final int LOCATIONS = 1000;
+
+    private Path file;
+    private TimetableReader reader;
+    private int[] times;
+    private int lookup;
+    private List<TimetableExporter.Location> locations;
+    private TimetableExporter csv;
+    private TimetableExporter json;
+    private OutputStream discard;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("timetable", ".bin");
+        PrayTimesCalculator calculator = new PrayTimesCalculator.Builder()
+                .setTimezone(TimeZone.getTimeZone("Europe/Berlin"))
+                .build();
+        try (TimetableWriter writer = new TimetableWriter(file, 2017, 1, 1, 365, false)) {
+            for (int i = 0; i < LOCATIONS; i++) {
+                writer.add(calculator, 40 + i * 0.01, i * 0.02, 0);
+            }
+        }
+        reader = new TimetableReader(file);
+        times = new int[12];
+
+        locations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            locations.add(new TimetableExporter.Location("location " + i, calculator, 40 + i * 0.1, i * 0.2, 0));
+        }
+        csv = new TimetableExporter(TimetableExporter.Format.CSV, 2017, 1, 1, 365);
+        json = new TimetableExporter(TimetableExporter.Format.JSON, 2017, 1, 1, 365);
+        discard = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        reader.close();
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * all times of a day for changing locations and days
+     *
+     * @return times
+     */
+    @Benchmark
+    public int[] getTimes() {
+        lookup = lookup * 1103515245 + 12345;
+        int location = (lookup >>> 1) % LOCATIONS;
+        int day = (lookup >>> 11) % 365;
+        reader.getTimes(location, day, times);
+        return times;
+    }
+
+    /**
+     * a single time for changing locations and days
+     *
+     * @return time
+     */
+    @Benchmark
+    public int getTime() {
+        lookup = lookup * 1103515245 + 12345;
+        int location = (lookup >>> 1) % LOCATIONS;
+        int day = (lookup >>> 11) % 365;
+        return reader.getTime(location, day, Constants.TIMES_MAGHRIB);
+    }
+
+    /**
+     * a year of 10 locations as CSV (3650 rows)
+     *
+     * @return statistics
+     * @throws IOException never
+     */
+    @Benchmark
+    public TimetableExporter.Statistics exportCsv() throws IOException {
+        return csv.export(locations.iterator(), discard);
+    }
+
+    /**
+     * a year of 10 locations as JSON (3650 rows)
+     *
+     * @return statistics
+     * @throws IOException never
+     */
+    @Benchmark
+    public TimetableExporter.Statistics exportJson() throws IOException {
+        return json.export(locations.iterator(), discard);
+    }
+}
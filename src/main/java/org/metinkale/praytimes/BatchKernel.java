@@ -0,0 +1,573 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays kernel, which calculates one day for many locations
+ * <p>
+ * The locations are processed in blocks, every step of the calculation runs as a loop over all
+ * locations of a block on plain double arrays, which stay in the L1 cache. All times of a day, which
+ * are calculated at the same default time, share one sun position, so the sun is evaluated 6 times per
+ * location instead of 9 times. The times are exactly the same as the ones of
+ * {@link PrayTimesCalculator#compute(double, double, double, int, int, int, double[])}.
+ * <p>
+ * With {@link Parameters.Builder#setFastMath(boolean)} the loops are written for the auto-vectorizer of the
+ * JIT: every loop is straight-line arithmetic (add, multiply, divide, square root) over the arrays,
+ * without calls or branches. The sun model is fitted once per day by polynomials in the time, which are
+ * evaluated for all locations, sine and cosine of the latitude are Taylor polynomials and the arc cosine of
+ * the hour angle is reduced by halving the angle until a short arc sine series is exact. An ephemeris cache
+ * is not used. The times differ by less than 0.02 seconds from compute with fast math, mostly near the polar
+ * circles, because the fit of {@link SolarModel#USNO} takes the obliquity of the ecliptic at 0:00 UT and compute
+ * at 0:00 of the location. With -XX:-UseSuperWord the fast math loops take about twice as long.
+ * <p>
+ * Not thread-safe, use one instance per thread.
+ */
+final class BatchKernel {
+    /**
+     * number of locations per block, the scratch arrays of a block fit into the L1 cache
+     */
+    static final int BLOCK = 256;
+
+    private static final double RAD = Math.PI / 180;
+    /**
+     * arc cosine in hours = 16 arc sine in radians * 12 / PI, see {@link #acosTimes(double[], double, int)}
+     */
+    private static final double HOURS = 16 * 12 / Math.PI;
+    /**
+     * Taylor series of sin(x) / x in x², exact to 1e-17 for -PI/2 to PI/2
+     */
+    private static final double[] SIN = {1, -1 / 6.0, 1 / 120.0, -1 / 5040.0, 1 / 362880.0, -1 / 39916800.0,
+            1 / 6227020800.0, -1 / 1307674368000.0, 1 / 355687428096000.0, -1 / 121645100408832000.0,
+            1 / 51090942171709440000.0};
+    /**
+     * Taylor series of cos(x) in x², exact to 1e-17 for -PI/2 to PI/2
+     */
+    private static final double[] COS = {1, -1 / 2.0, 1 / 24.0, -1 / 720.0, 1 / 40320.0, -1 / 3628800.0,
+            1 / 479001600.0, -1 / 87178291200.0, 1 / 20922789888000.0, -1 / 6402373705728000.0,
+            1 / 2432902008176640000.0, -1 / 1124000727777607680000.0};
+    /**
+     * Taylor series of asin(x) / x in x², exact to 1e-17 for 0 to sin(PI/16)
+     */
+    private static final double[] ASIN = {1, 1 / 6.0, 3 / 40.0, 5 / 112.0, 35 / 1152.0, 63 / 2816.0,
+            231 / 13312.0, 143 / 10240.0, 6435 / 557056.0, 12155 / 1245184.0};
+
+    private final double[] jdate = new double[BLOCK];
+    private final double[] sinLat = new double[BLOCK];
+    private final double[] cosLat = new double[BLOCK];
+    private final double[] sinE = new double[BLOCK];
+    private final double[] cosE = new double[BLOCK];
+    private final double[] sinDecl = new double[BLOCK];
+    private final double[] cosDecl = new double[BLOCK];
+    private final double[] noon = new double[BLOCK];
+    private final double[][] raw = new double[PrayTimesCalculator.TIMES_COUNT][BLOCK];
+    private final double[] day = new double[PrayTimesCalculator.TIMES_COUNT];
+    private final SunPosition sun = new SunPosition(null, SolarModel.USNO, PrayTimesCalculator.JULIAN_EPOCH);
+
+    // scratch arrays of the fast math loops
+    /**
+     * time of the location minus universal time in days (-lng / 360)
+     */
+    private final double[] dayOffset = new double[BLOCK];
+    /**
+     * negative sine of the sunrise/sunset angle
+     */
+    private final double[] negSinRise = new double[BLOCK];
+    private final double[] arg = new double[BLOCK];
+    private final double[] arg2 = new double[BLOCK];
+    /**
+     * cosine of the hour angle
+     */
+    private final double[] cosHour = new double[BLOCK];
+
+    // polynomials in x (-1 to 1) of the sun of a day, fitted by fitSun
+    /**
+     * sine of the declination and equation of time at julian date epochDay + 0.5 + x (local times of the day)
+     */
+    private final double[] daySinDecl = new double[6], dayEquation = new double[6];
+    /**
+     * sine of the declination and equation of time at julian date epochDay + 18 + 7x, isha is calculated
+     * 11 to 25 days after the day, because computePrayerTimes passes the maghrib hours as day portion
+     */
+    private final double[] ishaSinDecl = new double[9], ishaEquation = new double[9];
+    private final double[] nodeSinDecl = new double[9], nodeEquation = new double[9];
+    private final double[] term = new double[9], previous = new double[9], next = new double[9];
+    private SolarModel fitModel;
+    private long fitDay;
+
+    /**
+     * compute tuned and normalized prayer times of one day for the locations from start (inclusive)
+     * to end (exclusive)
+     *
+     * @param params   parameters
+     * @param cache    ephemeris cache, or null to evaluate the sun position directly
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param lat      Latitudes
+     * @param lng      Longitudes
+     * @param elv      Elevations or null for 0
+     * @param times    12 arrays, times[TIMES_ from Constants][location] receives the times in hours (0-24)
+     * @param start    first location
+     * @param end      last location (exclusive)
+     */
+    void compute(Parameters params, EphemerisCache cache, long epochDay, double offset,
+                 double[] lat, double[] lng, double[] elv, double[][] times, int start, int end) {
+        Metrics metrics = Instrumentation.metrics;
+        boolean fast = params.fastMath;
+        if (fast) {
+            fitSun(params.solarModel, epochDay);
+        } else {
+            sun.reset(cache, params.solarModel, epochDay + PrayTimesCalculator.JULIAN_EPOCH);
+        }
+        for (int s = start; s < end; s += BLOCK) {
+            long begin = metrics == null ? 0 : System.nanoTime();
+            int n = Math.min(BLOCK, end - s);
+            if (fast) {
+                vectorBlock(params, lat, lng, elv, s, n);
+            } else {
+                block(params, sun, epochDay, lat, lng, elv, s, n);
+            }
+            finish(params, offset, lng, times, s, n);
+            if (metrics != null) report(metrics, times, s, n, System.nanoTime() - begin);
+        }
+    }
+
+    private void block(Parameters params, SunPosition sun, long epochDay,
+                       double[] lat, double[] lng, double[] elv, int s, int n) {
+        for (int j = 0; j < n; j++) {
+            jdate[j] = epochDay + PrayTimesCalculator.JULIAN_EPOCH - lng[s + j] / (15.0 * 24.0);
+            sinLat[j] = DMath.sin(lat[s + j]);
+            cosLat[j] = DMath.cos(lat[s + j]);
+        }
+        if (!sun.isCached()) {
+            for (int j = 0; j < n; j++) {
+                sun.setDay(jdate[j]);
+                sinE[j] = sun.sinE;
+                cosE[j] = sun.cosE;
+            }
+        }
+
+        // 5:00 imsak and fajr
+        sun(sun, 5 / 24.0, n);
+        if (!params.imsakMin) sunAngleTimes(-DMath.sin(params.imsak), raw[Constants.TIMES_IMSAK], true, n);
+        sunAngleTimes(-DMath.sin(params.fajr), raw[Constants.TIMES_FAJR], true, n);
+
+        // 6:00 sunrise
+        sun(sun, 6 / 24.0, n);
+        riseSetTimes(elv, s, raw[Constants.TIMES_SUNRISE], true, n);
+
+        // 12:00 zawal
+        sun(sun, 12 / 24.0, n);
+        System.arraycopy(noon, 0, raw[Constants.TIMES_ZAWAL], 0, n);
+
+        // 13:00 asr
+        sun(sun, 13 / 24.0, n);
+        asrTimes(lat, s, Constants.JURISTIC_STANDARD, raw[Constants.TIMES_ASR_SHAFII], n);
+        asrTimes(lat, s, Constants.JURISTIC_HANAFI, raw[Constants.TIMES_ASR_HANAFI], n);
+
+        // 18:00 sunset, maghrib and isha
+        sun(sun, 18 / 24.0, n);
+        riseSetTimes(elv, s, raw[Constants.TIMES_SUNSET], false, n);
+        // an angle based isha starts at maghrib by angle, which needs no sun position of its own
+        if (!params.maghribMin || !params.ishaMin) {
+            sunAngleTimes(-DMath.sin(params.maghrib), raw[Constants.TIMES_MAGHRIB], false, n);
+        }
+
+        // computePrayerTimes passes the maghrib time as default time of isha
+        if (!params.ishaMin) {
+            for (int j = 0; j < n; j++) {
+                sun.sinE = sinE[j];
+                sun.cosE = cosE[j];
+                sun.compute(jdate[j] + raw[Constants.TIMES_MAGHRIB][j]);
+                sinDecl[j] = sun.sinDecl;
+                cosDecl[j] = sun.cosDecl;
+                noon[j] = DMath.fixHour(12 - sun.equation);
+            }
+            sunAngleTimes(-DMath.sin(params.isha), raw[Constants.TIMES_ISHA], false, n);
+        }
+    }
+
+    /**
+     * same as block, with the fast math loops
+     */
+    private void vectorBlock(Parameters params, double[] lat, double[] lng, double[] elv, int s, int n) {
+        for (int j = 0; j < n; j++) {
+            dayOffset[j] = lng[s + j] / (-15.0 * 24.0);
+            arg[j] = lat[s + j] * RAD;
+            arg2[j] = arg[j] * arg[j];
+        }
+        horner(SIN, arg2, sinLat, n);
+        horner(COS, arg2, cosLat, n);
+        for (int j = 0; j < n; j++) {
+            sinLat[j] *= arg[j];
+        }
+        if (elv == null) {
+            double negSin = -FastDMath.sin(PrayTimesCalculator.riseSetAngle(0));
+            for (int j = 0; j < n; j++) {
+                negSinRise[j] = negSin;
+            }
+        } else {
+            for (int j = 0; j < n; j++) {
+                arg[j] = PrayTimesCalculator.riseSetAngle(elv[s + j]) * RAD;
+                arg2[j] = arg[j] * arg[j];
+            }
+            horner(SIN, arg2, negSinRise, n);
+            for (int j = 0; j < n; j++) {
+                negSinRise[j] *= -arg[j];
+            }
+        }
+
+        // 5:00 imsak and fajr
+        vectorSun(daySinDecl, dayEquation, 5 / 24.0 - 0.5, 1, n);
+        if (!params.imsakMin) {
+            vectorAngleTimes(-FastDMath.sin(params.imsak), raw[Constants.TIMES_IMSAK], true, n);
+        }
+        vectorAngleTimes(-FastDMath.sin(params.fajr), raw[Constants.TIMES_FAJR], true, n);
+
+        // 6:00 sunrise
+        vectorSun(daySinDecl, dayEquation, 6 / 24.0 - 0.5, 1, n);
+        vectorRiseSetTimes(raw[Constants.TIMES_SUNRISE], true, n);
+
+        // 12:00 zawal
+        vectorSun(daySinDecl, dayEquation, 12 / 24.0 - 0.5, 1, n);
+        System.arraycopy(noon, 0, raw[Constants.TIMES_ZAWAL], 0, n);
+
+        // 13:00 asr
+        vectorSun(daySinDecl, dayEquation, 13 / 24.0 - 0.5, 1, n);
+        vectorAsrTimes(Constants.JURISTIC_STANDARD, raw[Constants.TIMES_ASR_SHAFII], n);
+        vectorAsrTimes(Constants.JURISTIC_HANAFI, raw[Constants.TIMES_ASR_HANAFI], n);
+
+        // 18:00 sunset, maghrib and isha
+        vectorSun(daySinDecl, dayEquation, 18 / 24.0 - 0.5, 1, n);
+        vectorRiseSetTimes(raw[Constants.TIMES_SUNSET], false, n);
+        if (!params.maghribMin || !params.ishaMin) {
+            vectorAngleTimes(-FastDMath.sin(params.maghrib), raw[Constants.TIMES_MAGHRIB], false, n);
+        }
+
+        // computePrayerTimes passes the maghrib time as default time of isha
+        if (!params.ishaMin) {
+            double[] maghrib = raw[Constants.TIMES_MAGHRIB];
+            for (int j = 0; j < n; j++) {
+                dayOffset[j] += maghrib[j];
+            }
+            vectorSun(ishaSinDecl, ishaEquation, -18, 1 / 7.0, n);
+            vectorAngleTimes(-FastDMath.sin(params.isha), raw[Constants.TIMES_ISHA], false, n);
+        }
+    }
+
+    /**
+     * apply the adjustments, which depend on each other and on the parameters, per location
+     *
+     * @param params parameters
+     * @param offset time zone offset in hours
+     * @param lng    Longitudes
+     * @param times  receives the times
+     * @param s      first location of the block
+     * @param n      number of locations
+     */
+    private void finish(Parameters params, double offset, double[] lng, double[][] times, int s, int n) {
+        System.arraycopy(params.asrJuristic != Constants.JURISTIC_STANDARD ?
+                raw[Constants.TIMES_ASR_HANAFI] : raw[Constants.TIMES_ASR_SHAFII], 0, raw[Constants.TIMES_ASR], 0, n);
+
+        // computePrayerTimes leaves the default day portions for these
+        for (int j = 0; j < n; j++) {
+            raw[Constants.TIMES_DHUHR][j] = 12 / 24.0;
+            raw[Constants.TIMES_MIDNIGHT][j] = 0;
+        }
+
+        // minute based times need no sun position, finishTimes derives them from their base time
+        int solved = PrayTimesCalculator.ALL_TIMES & ~PrayTimesCalculator.minuteTimes(params);
+        for (int j = 0; j < n; j++) {
+            for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+                day[i] = raw[i][j];
+            }
+            PrayTimesCalculator.finishTimes(params, lng[s + j], offset, solved, day);
+            PrayTimesCalculator.tuneTimes(params, day);
+            for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+                times[i][s + j] = DMath.fixHour(day[i]);
+            }
+        }
+    }
+
+    /**
+     * report a calculated block to the metrics
+     *
+     * @param metrics metrics
+     * @param times   calculated times
+     * @param s       first location of the block
+     * @param n       number of locations
+     * @param nanos   time used for the block
+     */
+    private static void report(Metrics metrics, double[][] times, int s, int n, long nanos) {
+        metrics.onCompute(PrayTimesCalculator.ALL_TIMES, n, nanos);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            for (int j = s; j < s + n; j++) {
+                if (Double.isNaN(times[i][j])) metrics.onMissingTime(i);
+            }
+        }
+    }
+
+    /**
+     * evaluate the sun at the given default time for all locations of the block
+     *
+     * @param sun  sun position
+     * @param time default time as day portion
+     * @param n    number of locations
+     */
+    private void sun(SunPosition sun, double time, int n) {
+        for (int j = 0; j < n; j++) {
+            sun.sinE = sinE[j];
+            sun.cosE = cosE[j];
+            sun.compute(jdate[j] + time);
+            sinDecl[j] = sun.sinDecl;
+            cosDecl[j] = sun.cosDecl;
+            noon[j] = DMath.fixHour(12 - sun.equation);
+        }
+    }
+
+    /**
+     * @param negSinAngle negative sine of the angle below the horizon
+     * @param out         receives the times
+     * @param ccw         true for times before noon
+     * @param n           number of locations
+     */
+    private void sunAngleTimes(double negSinAngle, double[] out, boolean ccw, int n) {
+        for (int j = 0; j < n; j++) {
+            double t = hourAngle(negSinAngle, j);
+            out[j] = noon[j] + (ccw ? -t : t);
+        }
+    }
+
+    /**
+     * @param elv Elevations or null for 0
+     * @param s   first location of the block
+     * @param out receives the times
+     * @param ccw true for sunrise, false for sunset
+     * @param n   number of locations
+     */
+    private void riseSetTimes(double[] elv, int s, double[] out, boolean ccw, int n) {
+        for (int j = 0; j < n; j++) {
+            double angle = PrayTimesCalculator.riseSetAngle(elv == null ? 0 : elv[s + j]);
+            double t = hourAngle(-DMath.sin(angle), j);
+            out[j] = noon[j] + (ccw ? -t : t);
+        }
+    }
+
+    /**
+     * @param lat    Latitudes
+     * @param s      first location of the block
+     * @param factor shadow factor
+     * @param out    receives the times
+     * @param n      number of locations
+     */
+    private void asrTimes(double[] lat, int s, int factor, double[] out, int n) {
+        for (int j = 0; j < n; j++) {
+            double declination = DMath.arcsin(sinDecl[j]);
+            double angle = -DMath.arccot(factor + DMath.tan(Math.abs(lat[s + j] - declination)));
+            out[j] = noon[j] + hourAngle(-DMath.sin(angle), j);
+        }
+    }
+
+    private double hourAngle(double negSinAngle, int j) {
+        double cos = (negSinAngle - sinDecl[j] * sinLat[j]) / (cosDecl[j] * cosLat[j]);
+        return 1.0 / 15.0 * DMath.arccos(cos);
+    }
+
+    /**
+     * fit the polynomials of the sun of a day, unless they are fitted already
+     *
+     * @param model    sun model
+     * @param epochDay days since 1970-01-01
+     */
+    private void fitSun(SolarModel model, long epochDay) {
+        if (model == fitModel && epochDay == fitDay) return;
+        double jdate = epochDay + PrayTimesCalculator.JULIAN_EPOCH;
+        // compute uses the obliquity of the day for all times of the day
+        sun.reset(null, model, jdate);
+        fit(jdate + 0.5, 1, daySinDecl, dayEquation);
+        fit(jdate + 18, 7, ishaSinDecl, ishaEquation);
+        fitModel = model;
+        fitDay = epochDay;
+    }
+
+    /**
+     * interpolate the sun at the chebyshev nodes, the error is at the noise of the sun models
+     *
+     * @param center   julian date at x = 0
+     * @param half     days from x = 0 to x = 1
+     * @param sinDecl  receives the coefficients of the sine of the declination, lowest power first
+     * @param equation receives the coefficients of the equation of time
+     */
+    private void fit(double center, double half, double[] sinDecl, double[] equation) {
+        int n = sinDecl.length;
+        for (int k = 0; k < n; k++) {
+            double jd = center + half * Math.cos(Math.PI * (k + 0.5) / n);
+            sun.compute(jd);
+            nodeSinDecl[k] = sun.sinDecl;
+            nodeEquation[k] = sun.equation;
+        }
+        chebyshev(nodeSinDecl, sinDecl, n);
+        chebyshev(nodeEquation, equation, n);
+    }
+
+    /**
+     * @param values values at the n chebyshev nodes
+     * @param out    receives the coefficients of the interpolating polynomial, lowest power first
+     * @param n      number of nodes
+     */
+    private void chebyshev(double[] values, double[] out, int n) {
+        Arrays.fill(out, 0, n, 0);
+        Arrays.fill(previous, 0, n, 0);
+        Arrays.fill(term, 0, n, 0);
+        term[0] = 1;
+        for (int k = 0; k < n; k++) {
+            double c = 0;
+            for (int i = 0; i < n; i++) {
+                c += values[i] * Math.cos(Math.PI * k * (i + 0.5) / n);
+            }
+            c *= (k == 0 ? 1.0 : 2.0) / n;
+            for (int i = 0; i < n; i++) {
+                out[i] += c * term[i];
+            }
+            // T(k + 1) = 2x T(k) - T(k - 1), T(1) = x
+            for (int i = 0; i < n; i++) {
+                next[i] = (i == 0 ? 0 : (k == 0 ? 1 : 2) * term[i - 1]) - previous[i];
+            }
+            System.arraycopy(term, 0, previous, 0, n);
+            System.arraycopy(next, 0, term, 0, n);
+        }
+    }
+
+    /**
+     * evaluate the fitted sun for all locations of the block, x = (dayOffset + shift) * scale
+     *
+     * @param sinDecl  coefficients of the sine of the declination
+     * @param equation coefficients of the equation of time
+     * @param shift    added to dayOffset
+     * @param scale    multiplied with the shifted dayOffset
+     * @param n        number of locations
+     */
+    private void vectorSun(double[] sinDecl, double[] equation, double shift, double scale, int n) {
+        for (int j = 0; j < n; j++) {
+            arg[j] = (dayOffset[j] + shift) * scale;
+        }
+        horner(sinDecl, arg, this.sinDecl, n);
+        horner(equation, arg, noon, n);
+        for (int j = 0; j < n; j++) {
+            double sin = this.sinDecl[j];
+            cosDecl[j] = Math.sqrt(1 - sin * sin);
+            noon[j] = 12 - noon[j];
+        }
+    }
+
+    /**
+     * @param negSinAngle negative sine of the angle below the horizon
+     * @param out         receives the times
+     * @param ccw         true for times before noon
+     * @param n           number of locations
+     */
+    private void vectorAngleTimes(double negSinAngle, double[] out, boolean ccw, int n) {
+        for (int j = 0; j < n; j++) {
+            cosHour[j] = (negSinAngle - sinDecl[j] * sinLat[j]) / (cosDecl[j] * cosLat[j]);
+        }
+        acosTimes(out, ccw ? -HOURS : HOURS, n);
+    }
+
+    /**
+     * @param out receives the times
+     * @param ccw true for sunrise, false for sunset
+     * @param n   number of locations
+     */
+    private void vectorRiseSetTimes(double[] out, boolean ccw, int n) {
+        for (int j = 0; j < n; j++) {
+            cosHour[j] = (negSinRise[j] - sinDecl[j] * sinLat[j]) / (cosDecl[j] * cosLat[j]);
+        }
+        acosTimes(out, ccw ? -HOURS : HOURS, n);
+    }
+
+    /**
+     * -sin(-arccot(factor + tan|lat - decl|)) = u / sqrt(1 + u²) with u = 1 / (factor + tan|lat - decl|)
+     * and tan|lat - decl| = |sin(lat - decl)| / cos(lat - decl)
+     *
+     * @param factor shadow factor
+     * @param out    receives the times
+     * @param n      number of locations
+     */
+    private void vectorAsrTimes(int factor, double[] out, int n) {
+        for (int j = 0; j < n; j++) {
+            double sinDiff = sinLat[j] * cosDecl[j] - cosLat[j] * sinDecl[j];
+            double cosDiff = cosLat[j] * cosDecl[j] + sinLat[j] * sinDecl[j];
+            double u = cosDiff / (factor * cosDiff + Math.abs(sinDiff));
+            cosHour[j] = (u / Math.sqrt(1 + u * u) - sinDecl[j] * sinLat[j]) / (cosDecl[j] * cosLat[j]);
+        }
+        acosTimes(out, HOURS, n);
+    }
+
+    /**
+     * out = noon + scale * asin(w) with acos(cos) = 16 asin(w)
+     * <p>
+     * The angle is halved three times, y = cos(a / 2) = sqrt((1 + cos) / 2), z = cos(a / 4), v = cos(a / 8),
+     * then w² = sin²(a / 16) = (1 - v) / 2 = (1 - cos) / (16 (1 + y)(1 + z)(1 + v)), which has no cancellation.
+     * A cosine outside -1 to 1 gives the square root of a negative number, so NaN like arccos.
+     *
+     * @param out   receives the times
+     * @param scale HOURS, negative for times before noon
+     * @param n     number of locations
+     */
+    private void acosTimes(double[] out, double scale, int n) {
+        for (int j = 0; j < n; j++) {
+            double c = cosHour[j];
+            double y = Math.sqrt((1 + c) * 0.5);
+            double z = Math.sqrt((1 + y) * 0.5);
+            double v = Math.sqrt((1 + z) * 0.5);
+            arg2[j] = (1 - c) / (16 * (1 + y) * (1 + z) * (1 + v));
+        }
+        horner(ASIN, arg2, out, n);
+        for (int j = 0; j < n; j++) {
+            out[j] = noon[j] + scale * Math.sqrt(arg2[j]) * out[j];
+        }
+    }
+
+    /**
+     * evaluate a polynomial for all locations, one loop per coefficient
+     *
+     * @param c   coefficients, lowest power first
+     * @param x   arguments
+     * @param out receives the values
+     * @param n   number of locations
+     */
+    private static void horner(double[] c, double[] x, double[] out, int n) {
+        double last = c[c.length - 1];
+        for (int j = 0; j < n; j++) {
+            out[j] = last;
+        }
+        for (int k = c.length - 2; k >= 0; k--) {
+            double ck = c[k];
+            for (int j = 0; j < n; j++) {
+                out[j] = out[j] * x[j] + ck;
+            }
+        }
+    }
+}
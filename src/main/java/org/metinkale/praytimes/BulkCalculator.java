@@ -0,0 +1,316 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.Closeable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Calculates prayer times of many locations in parallel on a {@link ForkJoinPool}
+ * <p>
+ * The locations are split into chunks, each worker thread calculates its chunks with its own scratch buffer
+ * and writes the times directly into the result array. Every location has a fixed part of the result array,
+ * so the results are the same as a sequential calculation, regardless of the parallelism.
+ * <p>
+ * The times of location l and day n are stored at index (l * days + n) * 12 + TIMES_ from Constants.
+ * <p>
+ * Instances can be shared between threads.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BulkCalculator implements Closeable {
+    /**
+     * number of chunks per thread, more chunks balance the load better if some locations take longer
+     */
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    private final ForkJoinPool pool;
+    private final boolean ownPool;
+
+    /**
+     * creates a bulk calculator, which uses the common pool
+     */
+    public BulkCalculator() {
+        this(ForkJoinPool.commonPool(), false);
+    }
+
+    /**
+     * creates a bulk calculator with its own pool, which is shut down by {@link #close()}
+     *
+     * @param parallelism number of threads
+     */
+    public BulkCalculator(int parallelism) {
+        this(new ForkJoinPool(parallelism), true);
+    }
+
+    /**
+     * creates a bulk calculator, which uses the given pool
+     *
+     * @param pool pool, it is not shut down by {@link #close()}
+     */
+    public BulkCalculator(ForkJoinPool pool) {
+        this(pool, false);
+    }
+
+    private BulkCalculator(ForkJoinPool pool, boolean ownPool) {
+        this.pool = pool;
+        this.ownPool = ownPool;
+    }
+
+    /**
+     * @return number of threads
+     */
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    /**
+     * compute prayer times of all locations for a range of days
+     *
+     * @param calculator calculator used for all locations
+     * @param lat        Latitudes
+     * @param lng        Longitudes
+     * @param elv        Elevations or null for 0
+     * @param year       Year of the first day (e.g. 2017)
+     * @param month      Month of the first day (1-12)
+     * @param day        first Date/Day of Month
+     * @param days       number of days
+     * @param times      array with at least locations * days * 12 elements, receives the times in hours (0-24)
+     */
+    public void computeRange(PrayTimesCalculator calculator, double[] lat, double[] lng, double[] elv,
+                             int year, int month, int day, int days, double[] times) {
+        check(null, lat, lng, elv, days, times.length);
+        pool.invoke(new Task(calculator, null, lat, lng, elv, PrayTimesCalculator.epochDay(year, month, day), days,
+                times, null, 0, lat.length, threshold(lat.length)));
+    }
+
+    /**
+     * compute prayer times of all locations for a range of days
+     *
+     * @param calculators calculator of each location (e.g. for different timezones), can contain the same instance many times
+     * @param lat         Latitudes
+     * @param lng         Longitudes
+     * @param elv         Elevations or null for 0
+     * @param year        Year of the first day (e.g. 2017)
+     * @param month       Month of the first day (1-12)
+     * @param day         first Date/Day of Month
+     * @param days        number of days
+     * @param times       array with at least locations * days * 12 elements, receives the times in hours (0-24)
+     */
+    public void computeRange(PrayTimesCalculator[] calculators, double[] lat, double[] lng, double[] elv,
+                             int year, int month, int day, int days, double[] times) {
+        check(calculators, lat, lng, elv, days, times.length);
+        pool.invoke(new Task(null, calculators, lat, lng, elv, PrayTimesCalculator.epochDay(year, month, day), days,
+                times, null, 0, lat.length, threshold(lat.length)));
+    }
+
+    /**
+     * compute prayer times of all locations for a range of days as minutes of day
+     *
+     * @param calculator calculator used for all locations
+     * @param lat        Latitudes
+     * @param lng        Longitudes
+     * @param elv        Elevations or null for 0
+     * @param year       Year of the first day (e.g. 2017)
+     * @param month      Month of the first day (1-12)
+     * @param day        first Date/Day of Month
+     * @param days       number of days
+     * @param times      array with at least locations * days * 12 elements, receives the times in minutes of day (0-1439),
+     *                   or -1 if a time does not exist at a location
+     */
+    public void computeRange(PrayTimesCalculator calculator, double[] lat, double[] lng, double[] elv,
+                             int year, int month, int day, int days, int[] times) {
+        check(null, lat, lng, elv, days, times.length);
+        pool.invoke(new Task(calculator, null, lat, lng, elv, PrayTimesCalculator.epochDay(year, month, day), days,
+                null, times, 0, lat.length, threshold(lat.length)));
+    }
+
+    /**
+     * compute prayer times of all locations for a range of days as minutes of day
+     *
+     * @param calculators calculator of each location (e.g. for different timezones), can contain the same instance many times
+     * @param lat         Latitudes
+     * @param lng         Longitudes
+     * @param elv         Elevations or null for 0
+     * @param year        Year of the first day (e.g. 2017)
+     * @param month       Month of the first day (1-12)
+     * @param day         first Date/Day of Month
+     * @param days        number of days
+     * @param times       array with at least locations * days * 12 elements, receives the times in minutes of day (0-1439),
+     *                    or -1 if a time does not exist at a location
+     */
+    public void computeRange(PrayTimesCalculator[] calculators, double[] lat, double[] lng, double[] elv,
+                             int year, int month, int day, int days, int[] times) {
+        check(calculators, lat, lng, elv, days, times.length);
+        pool.invoke(new Task(null, calculators, lat, lng, elv, PrayTimesCalculator.epochDay(year, month, day), days,
+                null, times, 0, lat.length, threshold(lat.length)));
+    }
+
+    /**
+     * compute prayer times of all locations for one date with the struct-of-arrays kernel,
+     * see {@link PrayTimesCalculator#computeLocations(double[], double[], double[], int, int, int, double[][])}
+     *
+     * @param calculator calculator used for all locations
+     * @param lat        Latitudes
+     * @param lng        Longitudes
+     * @param elv        Elevations or null for 0
+     * @param year       Year (e.g. 2017)
+     * @param month      Month (1-12)
+     * @param day        Date/Day of Month
+     * @param times      12 arrays with at least lat.length elements, times[TIMES_ from Constants][location]
+     *                   receives the times in hours (0-24)
+     */
+    public void computeLocations(PrayTimesCalculator calculator, double[] lat, double[] lng, double[] elv,
+                                 int year, int month, int day, double[][] times) {
+        check(null, lat, lng, elv, 1, PrayTimesCalculator.TIMES_COUNT * lat.length);
+        for (double[] t : times) {
+            if (t.length < lat.length) throw new IllegalArgumentException("result array is too small");
+        }
+        // smaller tasks would not fill the blocks of the kernel
+        int threshold = Math.max(BatchKernel.BLOCK, threshold(lat.length));
+        pool.invoke(new LocationsTask(calculator, lat, lng, elv, PrayTimesCalculator.epochDay(year, month, day),
+                times, 0, lat.length, threshold));
+    }
+
+    /**
+     * shuts down the pool, if it was created by this instance
+     */
+    @Override
+    public void close() {
+        if (ownPool) pool.shutdown();
+    }
+
+    private int threshold(int locations) {
+        return Math.max(1, locations / (pool.getParallelism() * CHUNKS_PER_THREAD));
+    }
+
+    private static void check(PrayTimesCalculator[] calculators, double[] lat, double[] lng, double[] elv, int days, int length) {
+        int n = lat.length;
+        if (lng.length != n || (elv != null && elv.length != n) || (calculators != null && calculators.length != n)) {
+            throw new IllegalArgumentException("all location arrays must have the same length");
+        }
+        if (days < 0 || (long) n * days * PrayTimesCalculator.TIMES_COUNT > length) {
+            throw new IllegalArgumentException("result array is too small");
+        }
+    }
+
+    /**
+     * calculates the locations from start (inclusive) to end (exclusive), splits itself while the range is larger
+     * than the threshold
+     */
+    private static final class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final PrayTimesCalculator calculator;
+        private final PrayTimesCalculator[] calculators;
+        private final double[] lat, lng, elv;
+        private final long epochDay;
+        private final int days;
+        private final double[] hours;
+        private final int[] minutes;
+        private final int start, end, threshold;
+
+        Task(PrayTimesCalculator calculator, PrayTimesCalculator[] calculators, double[] lat, double[] lng, double[] elv,
+             long epochDay, int days, double[] hours, int[] minutes, int start, int end, int threshold) {
+            this.calculator = calculator;
+            this.calculators = calculators;
+            this.lat = lat;
+            this.lng = lng;
+            this.elv = elv;
+            this.epochDay = epochDay;
+            this.days = days;
+            this.hours = hours;
+            this.minutes = minutes;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > threshold) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new Task(calculator, calculators, lat, lng, elv, epochDay, days, hours, minutes, start, mid, threshold),
+                        new Task(calculator, calculators, lat, lng, elv, epochDay, days, hours, minutes, mid, end, threshold));
+                return;
+            }
+            double[] scratch = PrayTimesCalculator.SCRATCH.get();
+            int stride = days * PrayTimesCalculator.TIMES_COUNT;
+            for (int l = start; l < end; l++) {
+                PrayTimesCalculator c = calculators == null ? calculator : calculators[l];
+                double e = elv == null ? 0 : elv[l];
+                if (hours != null) {
+                    c.computeRange(lat[l], lng[l], e, epochDay, days, hours, l * stride, scratch);
+                } else {
+                    c.computeRange(lat[l], lng[l], e, epochDay, days, minutes, l * stride, scratch);
+                }
+            }
+        }
+    }
+
+    /**
+     * calculates one date for the locations from start (inclusive) to end (exclusive) with the struct-of-arrays
+     * kernel, splits itself while the range is larger than the threshold
+     */
+    private static final class LocationsTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private static final ThreadLocal<BatchKernel> KERNEL = new ThreadLocal<BatchKernel>() {
+            @Override
+            protected BatchKernel initialValue() {
+                return new BatchKernel();
+            }
+        };
+
+        private final PrayTimesCalculator calculator;
+        private final double[] lat, lng, elv;
+        private final long epochDay;
+        private final double[][] times;
+        private final int start, end, threshold;
+
+        LocationsTask(PrayTimesCalculator calculator, double[] lat, double[] lng, double[] elv, long epochDay,
+                      double[][] times, int start, int end, int threshold) {
+            this.calculator = calculator;
+            this.lat = lat;
+            this.lng = lng;
+            this.elv = elv;
+            this.epochDay = epochDay;
+            this.times = times;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > threshold) {
+                int mid = (start + end) >>> 1;
+                invokeAll(new LocationsTask(calculator, lat, lng, elv, epochDay, times, start, mid, threshold),
+                        new LocationsTask(calculator, lat, lng, elv, epochDay, times, mid, end, threshold));
+                return;
+            }
+            calculator.computeLocations(lat, lng, elv, epochDay, times, start, end, KERNEL.get());
+        }
+    }
+}
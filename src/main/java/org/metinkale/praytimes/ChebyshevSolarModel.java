@@ -0,0 +1,211 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * see {@link SolarModel#CHEBYSHEV}
+ * <p>
+ * The {@link SolarModel#NOAA} model is approximated by Chebyshev polynomials for fixed segments of days.
+ * The coefficients of sine of the declination, equation of time and mean longitude minus right ascension
+ * are stored in the classpath resource {@value #RESOURCE}, which is loaded when the model is used the first time:
+ * <pre>
+ * header (32 bytes):  int magic, int version, double first julian date, int days per segment,
+ *                     int segments, int degree, int reserved
+ * segment:            3 * (degree + 1) float coefficients
+ * </pre>
+ * All values are little endian. The resource is created by the EphemerisGenerator of the ephemeris source set
+ * (gradle ephemeris), which also checks the error against the NOAA model. Times outside of the table are
+ * calculated by the NOAA model.
+ */
+final class ChebyshevSolarModel implements SolarModel {
+    private static final long serialVersionUID = 1L;
+
+    static final String RESOURCE = "ephemeris.bin";
+    static final int MAGIC = 0x43455450; // "PTEC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    static final int SERIES_SIN_DECL = 0;
+    static final int SERIES_EQT = 1;
+    static final int SERIES_RA = 2;
+    static final int SERIES = 3;
+    private static final double RAD = Math.PI / 180;
+
+    /**
+     * the table of the resource, loaded on first use
+     */
+    private static final class Resource {
+        static final Table TABLE = load();
+    }
+
+    /**
+     * coefficients of all segments
+     */
+    static final class Table {
+        final double first;
+        final int segmentDays;
+        final int segments;
+        final int degree;
+        final float[] coefficients;
+
+        Table(double first, int segmentDays, int segments, int degree, float[] coefficients) {
+            this.first = first;
+            this.segmentDays = segmentDays;
+            this.segments = segments;
+            this.degree = degree;
+            this.coefficients = coefficients;
+        }
+    }
+
+    @Override
+    public void compute(double jd, double[] out) {
+        Table table = Resource.TABLE;
+        int base = segment(table, jd);
+        if (base < 0) {
+            NOAA.compute(jd, out);
+            return;
+        }
+        double x = argument(table, jd);
+        double sinDecl = series(table, base + SERIES_SIN_DECL * (table.degree + 1), x);
+        double eqt = series(table, base + SERIES_EQT * (table.degree + 1), x);
+        double ra = meanLongitude(jd) - series(table, base + SERIES_RA * (table.degree + 1), x);
+        out[DECLINATION] = Math.asin(sinDecl);
+        out[RIGHT_ASCENSION] = ra - 2 * Math.PI * Math.floor(ra / (2 * Math.PI) + 0.5);
+        out[EQUATION_OF_TIME] = eqt;
+    }
+
+    /**
+     * set the sun position at the given julian date, without any trigonometric functions
+     *
+     * @param jd       julian date
+     * @param out      receives the sun position
+     * @param position array with at least 3 elements for dates outside of the table
+     */
+    void sunPosition(double jd, SunPosition out, double[] position) {
+        Table table = Resource.TABLE;
+        int base = segment(table, jd);
+        if (base < 0) {
+            NOAA.compute(jd, position);
+            out.set(Math.sin(position[DECLINATION]), position[EQUATION_OF_TIME]);
+            return;
+        }
+        double x = argument(table, jd);
+        out.set(series(table, base + SERIES_SIN_DECL * (table.degree + 1), x),
+                series(table, base + SERIES_EQT * (table.degree + 1), x));
+    }
+
+    /**
+     * @return index of the first coefficient of the segment, or -1 if the date is not in the table
+     */
+    static int segment(Table table, double jd) {
+        double days = jd - table.first;
+        if (!(days >= 0 && days < (double) table.segments * table.segmentDays)) return -1;
+        return (int) (days / table.segmentDays) * SERIES * (table.degree + 1);
+    }
+
+    /**
+     * @return position of the date in its segment (-1 to 1)
+     */
+    static double argument(Table table, double jd) {
+        double days = jd - table.first;
+        double start = Math.floor(days / table.segmentDays) * table.segmentDays;
+        return 2 * (days - start) / table.segmentDays - 1;
+    }
+
+    /**
+     * evaluate a Chebyshev series with the Clenshaw recurrence
+     */
+    static double series(Table table, int base, double x) {
+        float[] c = table.coefficients;
+        double x2 = 2 * x;
+        double b0 = 0, b1 = 0;
+        for (int i = base + table.degree; i > base; i--) {
+            double t = x2 * b0 - b1 + c[i];
+            b1 = b0;
+            b0 = t;
+        }
+        return x * b0 - b1 + c[base];
+    }
+
+    /**
+     * @return geometric mean longitude of the NOAA model in radians
+     */
+    static double meanLongitude(double jd) {
+        double t = (jd - UsnoSolarModel.J2000) / 36525;
+        return (280.46646 + t * (36000.76983 + t * 0.0003032)) * RAD;
+    }
+
+    static Table read(byte[] data) throws IOException {
+        if (data.length < HEADER_SIZE) throw new IOException("not an ephemeris file");
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != MAGIC) throw new IOException("not an ephemeris file");
+        int version = buffer.getInt();
+        if (version != VERSION) throw new IOException("unsupported version " + version);
+        double first = buffer.getDouble();
+        int segmentDays = buffer.getInt();
+        int segments = buffer.getInt();
+        int degree = buffer.getInt();
+        buffer.getInt();
+        float[] coefficients = new float[segments * SERIES * (degree + 1)];
+        if (buffer.remaining() != coefficients.length * 4) throw new IOException("ephemeris file is truncated");
+        buffer.asFloatBuffer().get(coefficients);
+        return new Table(first, segmentDays, segments, degree, coefficients);
+    }
+
+    private static Table load() {
+        try (InputStream in = ChebyshevSolarModel.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) throw new IOException("missing resource " + RESOURCE);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return read(out.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 3;
+    }
+
+    @Override
+    public String toString() {
+        return "CHEBYSHEV";
+    }
+
+    private Object readResolve() {
+        return CHEBYSHEV;
+    }
+}
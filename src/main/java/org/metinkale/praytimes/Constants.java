@@ -132,4 +132,22 @@ public class Constants {
      * The mean time from sunset to sunrise (or from Maghrib to Fajr, in some schools of thought).
      */
     public static final int TIMES_MIDNIGHT = 11;
+
+    //===============================================>
+    /**
+     * If you turn yourself to the sun, you are in qibla direction.
+     */
+    public static final int QIBLA_FRONT = 0;
+    /**
+     * If you take the sun to your right, you are in qibla direction.
+     */
+    public static final int QIBLA_RIGHT = 1;
+    /**
+     * If you take the sun to your left, you are in qibla direction.
+     */
+    public static final int QIBLA_LEFT = 2;
+    /**
+     * If you turn yourself away from the sun, you are in qibla direction.
+     */
+    public static final int QIBLA_BACK = 3;
 }
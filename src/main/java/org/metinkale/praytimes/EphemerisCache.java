@@ -0,0 +1,169 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Bounded and thread-safe cache for the sun position (declination and equation of time)
+ * <p>
+ * The sun position only depends on the julian date, so it is the same for all locations. The cache evaluates
+ * the sun model at fixed nodes (every hour) and interpolates linearly between them. Calculating one day
+ * for any number of locations evaluates the sun model only about 50 times.
+ * <p>
+ * The interpolated times differ by less than 0.01 seconds up to 45° latitude and by less than
+ * 2.5 seconds up to 65° latitude from the directly calculated times, the largest differences are
+ * fajr and isha where the sun barely reaches their angle.
+ * <p>
+ * One instance can be shared by any number of {@link PrayTimesCalculator}s and threads,
+ * see {@link PrayTimesCalculator.Builder#setEphemerisCache(EphemerisCache)}
+ */
+@SuppressWarnings("WeakerAccess")
+public final class EphemerisCache {
+    /**
+     * nodes per day
+     */
+    private static final int NODES_PER_DAY = 24;
+
+    private final Node[] nodes;
+    private final int mask;
+    /**
+     * sun model of the nodes
+     */
+    final SolarModel model;
+
+    /**
+     * creates a cache for 16384 nodes, which covers about 680 days
+     */
+    public EphemerisCache() {
+        this(16384);
+    }
+
+    /**
+     * creates a cache for the default sun model
+     *
+     * @param capacity maximum number of nodes (24 per day), rounded up to a power of two
+     */
+    public EphemerisCache(int capacity) {
+        this(SolarModel.USNO, capacity);
+    }
+
+    /**
+     * creates a cache, it can only be used by calculators with the same sun model
+     *
+     * @param model    sun model, see {@link Parameters.Builder#setSolarModel(SolarModel)}
+     * @param capacity maximum number of nodes (24 per day), rounded up to a power of two
+     */
+    public EphemerisCache(SolarModel model, int capacity) {
+        this.model = model;
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        nodes = new Node[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @return sun model of this cache
+     */
+    public SolarModel getSolarModel() {
+        return model;
+    }
+
+    /**
+     * declination angle of sun
+     *
+     * @param jd julian date
+     * @return declination angle of sun
+     */
+    public double declination(double jd) {
+        double k = Math.floor(jd * NODES_PER_DAY);
+        double f = jd * NODES_PER_DAY - k;
+        Node n0 = node((long) k);
+        Node n1 = node((long) k + 1);
+        return DMath.arcsin(n0.sinDecl + f * (n1.sinDecl - n0.sinDecl));
+    }
+
+    /**
+     * equation of time
+     *
+     * @param jd julian date
+     * @return equation of time in hours (-12 to 12)
+     */
+    public double equationOfTime(double jd) {
+        double k = Math.floor(jd * NODES_PER_DAY);
+        double f = jd * NODES_PER_DAY - k;
+        Node n0 = node((long) k);
+        Node n1 = node((long) k + 1);
+        return n0.eqt + f * (n1.eqt - n0.eqt);
+    }
+
+    /**
+     * set the interpolated sun position at the given julian date
+     *
+     * @param jd  julian date
+     * @param out receives the sun position
+     */
+    void sunPosition(double jd, SunPosition out) {
+        double k = Math.floor(jd * NODES_PER_DAY);
+        double f = jd * NODES_PER_DAY - k;
+        Node n0 = node((long) k);
+        Node n1 = node((long) k + 1);
+        out.set(n0.sinDecl + f * (n1.sinDecl - n0.sinDecl), n0.eqt + f * (n1.eqt - n0.eqt));
+    }
+
+    /**
+     * get a node, computes it if it is not in the cache
+     * <p>
+     * nodes are immutable, so they can be shared between threads without synchronization,
+     * at worst a node is computed twice
+     *
+     * @param key node index (julian date * NODES_PER_DAY)
+     * @return node
+     */
+    private Node node(long key) {
+        int slot = (int) (key & mask);
+        Node node = nodes[slot];
+        if (node == null || node.key != key) {
+            node = new Node(model, key);
+            nodes[slot] = node;
+        }
+        return node;
+    }
+
+    /**
+     * sun position at a node
+     */
+    private static final class Node {
+        final long key;
+        final double sinDecl;
+        final double eqt;
+
+        Node(SolarModel model, long key) {
+            double jd = key / (double) NODES_PER_DAY;
+            SunPosition sun = new SunPosition(null, model, jd);
+            sun.compute(jd);
+            this.key = key;
+            this.sinDecl = sun.sinDecl;
+            this.eqt = sun.equation;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Degree-Based Math Class with fast approximations of the functions of {@link DMath}
+ * <p>
+ * The functions are evaluated with Taylor polynomials after reducing the angle to -45° to 45°
+ * (sine and cosine) or the ratio to tan(-15°) to tan(15°) (arc functions), instead of the
+ * {@link Math} functions. The measured absolute error against DMath is below 1e-12 for sin and cos
+ * and below 1e-11 degrees for the arc functions, the relative error of tan is below 1e-10.
+ * NaN is returned for the same arguments as DMath.
+ * <p>
+ * The prayer times differ by less than 1e-6 seconds, see {@link Parameters.Builder#setFastMath(boolean)}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class FastDMath {
+    private static final double RAD = Math.PI / 180;
+    private static final double DEG = 180 / Math.PI;
+    private static final double SQRT3 = Math.sqrt(3);
+    private static final double TAN_15 = 2 - SQRT3;
+
+    private FastDMath() {
+    }
+
+    public static double sin(double d) {
+        return sin(d, 0);
+    }
+
+    public static double cos(double d) {
+        return sin(d, 1);
+    }
+
+    public static double tan(double d) {
+        double q = Math.rint(d / 90);
+        double x = (d - 90 * q) * RAD;
+        double s = sinPoly(x);
+        double c = cosPoly(x);
+        return ((long) q & 1) == 0 ? s / c : -c / s;
+    }
+
+    public static double arcsin(double d) {
+        return DEG * atan(d / Math.sqrt((1 - d) * (1 + d)));
+    }
+
+    public static double arccos(double d) {
+        return DEG * 2 * atan(Math.sqrt((1 - d) / (1 + d)));
+    }
+
+    public static double arctan(double d) {
+        return DEG * atan(d);
+    }
+
+    public static double arccot(double x) {
+        return DEG * atan(1 / x);
+    }
+
+    /**
+     * @param d        angle in degrees
+     * @param quadrant added quadrants, 1 for cosine
+     * @return sine of d + quadrant * 90°
+     */
+    private static double sin(double d, int quadrant) {
+        double q = Math.rint(d / 90);
+        double x = (d - 90 * q) * RAD;
+        switch ((int) (((long) q + quadrant) & 3)) {
+            case 0:
+                return sinPoly(x);
+            case 1:
+                return cosPoly(x);
+            case 2:
+                return -sinPoly(x);
+            default:
+                return -cosPoly(x);
+        }
+    }
+
+    /**
+     * @param x angle in radians (-PI/4 to PI/4)
+     * @return sine of x
+     */
+    private static double sinPoly(double x) {
+        double t = x * x;
+        return x + x * t * (-1 / 6.0 + t * (1 / 120.0 + t * (-1 / 5040.0 + t * (1 / 362880.0
+                + t * (-1 / 39916800.0 + t * (1 / 6227020800.0))))));
+    }
+
+    /**
+     * @param x angle in radians (-PI/4 to PI/4)
+     * @return cosine of x
+     */
+    private static double cosPoly(double x) {
+        double t = x * x;
+        return 1 + t * (-1 / 2.0 + t * (1 / 24.0 + t * (-1 / 720.0 + t * (1 / 40320.0
+                + t * (-1 / 3628800.0 + t * (1 / 479001600.0))))));
+    }
+
+    /**
+     * @param y ratio
+     * @return arc tangent of y in radians
+     */
+    private static double atan(double y) {
+        double a = Math.abs(y);
+        boolean inverse = a > 1;
+        if (inverse) a = 1 / a;
+        double offset = 0;
+        if (a > TAN_15) {
+            // atan(a) = 30° + atan((a - tan(30°)) / (1 + a tan(30°)))
+            a = (a * SQRT3 - 1) / (SQRT3 + a);
+            offset = Math.PI / 6;
+        }
+        double t = a * a;
+        double r = offset + a + a * t * (-1 / 3.0 + t * (1 / 5.0 + t * (-1 / 7.0 + t * (1 / 9.0 + t * (-1 / 11.0
+                + t * (1 / 13.0 + t * (-1 / 15.0 + t * (1 / 17.0 + t * (-1 / 19.0)))))))));
+        if (inverse) r = Math.PI / 2 - r;
+        return y < 0 ? -r : r;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Global switch for the {@link Metrics} of all calculations
+ * <p>
+ * Instrumentation is disabled by default, then the calculations only check a single field and do not
+ * measure any time.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Instrumentation {
+    /**
+     * current metrics, null if disabled
+     */
+    static volatile Metrics metrics;
+
+    private Instrumentation() {
+    }
+
+    /**
+     * sets the metrics, which receive the measurements of all calculations in this JVM
+     *
+     * @param metrics metrics, or null to disable the instrumentation
+     */
+    public static void setMetrics(Metrics metrics) {
+        Instrumentation.metrics = metrics;
+    }
+
+    /**
+     * @return current metrics, or null if the instrumentation is disabled
+     */
+    public static Metrics getMetrics() {
+        return metrics;
+    }
+}
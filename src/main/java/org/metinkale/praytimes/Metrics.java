@@ -0,0 +1,95 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Receives measurements of the calculations, see {@link Instrumentation#setMetrics(Metrics)}
+ * <p>
+ * All methods do nothing by default. They are called on the calculating thread, so implementations have to be
+ * thread-safe and fast, e.g. count with {@link java.util.concurrent.atomic.LongAdder}s like {@link MetricsRecorder}.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface Metrics {
+    /**
+     * the times cached by a {@link PrayTimes} instance
+     */
+    int CACHE_TIMES = 0;
+    /**
+     * a {@link ResultCache}
+     */
+    int CACHE_RESULTS = 1;
+    /**
+     * the days cached by a {@link PrayerTimeline}
+     */
+    int CACHE_TIMELINE = 2;
+    /**
+     * number of caches
+     */
+    int CACHE_COUNT = 3;
+
+    /**
+     * called after prayer times were calculated
+     *
+     * @param mask  calculated times, bit 1 &lt;&lt; TIMES_ from Constants
+     * @param count number of calculated days (or locations)
+     * @param nanos time used for the calculation of all days
+     */
+    default void onCompute(int mask, int count, long nanos) {
+    }
+
+    /**
+     * called if a calculated time does not exist (NaN), e.g. fajr in summer at high latitudes
+     * without a high latitude adjustment
+     *
+     * @param time TIMES_ from Constants
+     */
+    default void onMissingTime(int time) {
+    }
+
+    /**
+     * called if a time was replaced by the high latitude adjustment
+     *
+     * @param time TIMES_ from Constants
+     */
+    default void onHighLatsAdjustment(int time) {
+    }
+
+    /**
+     * called after a lookup in a cache
+     *
+     * @param cache CACHE_ from this interface
+     * @param hit   true if the value was in the cache
+     */
+    default void onCacheLookup(int cache, boolean hit) {
+    }
+
+    /**
+     * called after a qibla time was searched
+     *
+     * @param iterations number of refinement steps
+     * @param found      false if the sun does not reach the direction on that day
+     */
+    default void onQiblaSearch(int iterations, boolean found) {
+    }
+}
@@ -0,0 +1,210 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link Metrics}, which count all events and keep a latency histogram
+ * <p>
+ * The histogram has one bucket per power of two nanoseconds, so percentiles are exact within a factor of two.
+ * Thread-safe, the counters are {@link LongAdder}s, which do not contend between threads.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MetricsRecorder implements Metrics {
+    private static final int BUCKETS = 64;
+    private static final int MAX_ITERATIONS = 16;
+
+    private final LongAdder computes = new LongAdder();
+    private final LongAdder computedDays = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final LongAdder[] latency = adders(BUCKETS);
+    private final LongAdder[] missing = adders(PrayTimesCalculator.TIMES_COUNT);
+    private final LongAdder[] highLats = adders(PrayTimesCalculator.TIMES_COUNT);
+    private final LongAdder[] hits = adders(CACHE_COUNT);
+    private final LongAdder[] misses = adders(CACHE_COUNT);
+    private final LongAdder qiblaSearches = new LongAdder();
+    private final LongAdder qiblaFailures = new LongAdder();
+    private final LongAdder[] qiblaIterations = adders(MAX_ITERATIONS + 1);
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    @Override
+    public void onCompute(int mask, int count, long nanos) {
+        computes.increment();
+        computedDays.add(count);
+        computeNanos.add(nanos);
+        long perDay = nanos / Math.max(count, 1);
+        latency[BUCKETS - Long.numberOfLeadingZeros(Math.max(perDay, 1))].increment();
+    }
+
+    @Override
+    public void onMissingTime(int time) {
+        missing[time].increment();
+    }
+
+    @Override
+    public void onHighLatsAdjustment(int time) {
+        highLats[time].increment();
+    }
+
+    @Override
+    public void onCacheLookup(int cache, boolean hit) {
+        (hit ? hits : misses)[cache].increment();
+    }
+
+    @Override
+    public void onQiblaSearch(int iterations, boolean found) {
+        qiblaSearches.increment();
+        if (!found) qiblaFailures.increment();
+        qiblaIterations[Math.min(iterations, MAX_ITERATIONS)].increment();
+    }
+
+    /**
+     * @return number of calculations
+     */
+    public long getComputeCount() {
+        return computes.sum();
+    }
+
+    /**
+     * @return number of calculated days (or locations), a calculation can calculate many days
+     */
+    public long getComputedDays() {
+        return computedDays.sum();
+    }
+
+    /**
+     * @return total time of all calculations in nanoseconds
+     */
+    public long getComputeNanos() {
+        return computeNanos.sum();
+    }
+
+    /**
+     * approximate percentile of the calculation time per day
+     *
+     * @param percentile percentile (0-100)
+     * @return upper bound of the bucket containing the percentile in nanoseconds, 0 if nothing was calculated
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = latency[i].sum();
+            total += counts[i];
+        }
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(percentile / 100 * total);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && counts[i] > 0) return (1L << i) - 1;
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @param time TIMES_ from Constants
+     * @return number of calculations, in which the time did not exist
+     */
+    public long getMissingCount(int time) {
+        return missing[time].sum();
+    }
+
+    /**
+     * @param time TIMES_ from Constants
+     * @return number of calculations, in which the time was replaced by the high latitude adjustment
+     */
+    public long getHighLatsAdjustmentCount(int time) {
+        return highLats[time].sum();
+    }
+
+    /**
+     * @param cache CACHE_ from {@link Metrics}
+     * @return number of lookups, which found their value in the cache
+     */
+    public long getHitCount(int cache) {
+        return hits[cache].sum();
+    }
+
+    /**
+     * @param cache CACHE_ from {@link Metrics}
+     * @return number of lookups, which did not find their value in the cache
+     */
+    public long getMissCount(int cache) {
+        return misses[cache].sum();
+    }
+
+    /**
+     * @param cache CACHE_ from {@link Metrics}
+     * @return hits / lookups, or NaN if there was no lookup
+     */
+    public double getHitRatio(int cache) {
+        long hit = getHitCount(cache);
+        long lookups = hit + getMissCount(cache);
+        return lookups == 0 ? Double.NaN : hit / (double) lookups;
+    }
+
+    /**
+     * @return number of qibla time searches
+     */
+    public long getQiblaSearchCount() {
+        return qiblaSearches.sum();
+    }
+
+    /**
+     * @return number of qibla time searches, which did not find a time
+     */
+    public long getQiblaFailureCount() {
+        return qiblaFailures.sum();
+    }
+
+    /**
+     * @param iterations number of refinement steps
+     * @return number of qibla time searches, which needed this many steps
+     */
+    public long getQiblaIterationCount(int iterations) {
+        return qiblaIterations[Math.min(iterations, MAX_ITERATIONS)].sum();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("MetricsRecorder{computes=").append(getComputeCount())
+                .append(", days=").append(getComputedDays())
+                .append(", p50=").append(getLatencyPercentile(50)).append("ns")
+                .append(", p99=").append(getLatencyPercentile(99)).append("ns");
+        for (int cache = 0; cache < CACHE_COUNT; cache++) {
+            sb.append(", hitRatio[").append(cache).append("]=").append(getHitRatio(cache));
+        }
+        return sb.append(", qiblaSearches=").append(getQiblaSearchCount())
+                .append(", qiblaFailures=").append(getQiblaFailureCount()).append('}').toString();
+    }
+}
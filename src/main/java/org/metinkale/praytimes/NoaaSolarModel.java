@@ -0,0 +1,77 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * see {@link SolarModel#NOAA}
+ * Ref: https://gml.noaa.gov/grad/solcalc/calcdetails.html
+ * <p>
+ * The julian date is used as dynamical time, the difference (about 70 seconds) changes the times
+ * by less than 0.1 seconds.
+ */
+final class NoaaSolarModel implements SolarModel {
+    private static final long serialVersionUID = 1L;
+    private static final double RAD = Math.PI / 180;
+
+    @Override
+    public void compute(double jd, double[] out) {
+        // julian centuries since J2000
+        double t = (jd - UsnoSolarModel.J2000) / 36525;
+        double l0 = (280.46646 + t * (36000.76983 + t * 0.0003032)) * RAD;
+        double m = (357.52911 + t * (35999.05029 - t * 0.0001537)) * RAD;
+        double c = (Math.sin(m) * (1.914602 - t * (0.004817 + t * 0.000014))
+                + Math.sin(2 * m) * (0.019993 - t * 0.000101)
+                + Math.sin(3 * m) * 0.000289) * RAD;
+
+        // nutation in longitude and obliquity
+        double omega = (125.04 - 1934.136 * t) * RAD;
+        double nutation = -0.00478 * RAD * Math.sin(omega);
+        double e = (23 + (26 + (21.448 - t * (46.815 + t * (0.00059 - t * 0.001813))) / 60) / 60
+                + 0.00256 * Math.cos(omega)) * RAD;
+
+        // apparent longitude, corrected for aberration and nutation
+        double l = l0 + c - 0.00569 * RAD + nutation;
+        double sinL = Math.sin(l);
+        double cosE = Math.cos(e);
+
+        double ra = Math.atan2(cosE * sinL, Math.cos(l));
+        out[DECLINATION] = Math.asin(Math.sin(e) * sinL);
+        out[RIGHT_ASCENSION] = ra;
+        out[EQUATION_OF_TIME] = UsnoSolarModel.equationOfTime(l0 - 0.0057183 * RAD - ra + nutation * cosE);
+    }
+
+    @Override
+    public int hashCode() {
+        return 2;
+    }
+
+    @Override
+    public String toString() {
+        return "NOAA";
+    }
+
+    private Object readResolve() {
+        return NOAA;
+    }
+}
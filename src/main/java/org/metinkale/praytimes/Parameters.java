@@ -24,38 +24,533 @@ PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
 package org.metinkale.praytimes;
 
 import java.io.Serializable;
+import java.lang.ref.WeakReference;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Map;
 import java.util.TimeZone;
+import java.util.WeakHashMap;
 
 /**
  * Configuration for PrayTimes
+ * <p>
+ * Parameters are immutable values, use {@link Builder} or {@link #toBuilder()} to create them.
+ * Built parameters are interned, so all equal configurations share one instance and can be compared
+ * cheaply, e.g. as keys of a map. The {@link #getFingerprint() fingerprint} is a stable 64 bit hash
+ * of all settings.
  */
 @SuppressWarnings("WeakerAccess")
-public class Parameters implements Serializable {
-    protected boolean imsakMin = true;
-    protected boolean maghribMin;
-    protected boolean ishaMin;//if true double values are in minutes, otherwhise in degrees
+public final class Parameters implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * interned instances, an instance is removed if it is not used anymore
+     */
+    private static final Map<Parameters, WeakReference<Parameters>> INTERNED = new WeakHashMap<>();
+
+    final boolean imsakMin;
+    final boolean maghribMin;
+    final boolean ishaMin;//if true double values are in minutes, otherwhise in degrees
     //dhuhr is always in min, fajr is always in degrees
-    protected double imsak;
-    protected double fajr;
-    protected double dhuhr;
-    protected double maghrib;
-    protected double isha;
-    protected int highLats;
-    protected int midnight;
-    protected TimeZone timeZone = TimeZone.getDefault();
-    protected int asrJuristic;
-    protected double[] tune = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
-
-    protected Parameters() {
-        setMethod(Method.MWL);
-    }
-
-    protected void setMethod(Method method) {
-        fajr = method.fajr;
-        isha = method.isha;
-        maghrib = method.maghrib;
-        maghribMin = method.maghribMin;
-        ishaMin = method.ishaMin;
-        midnight = method.midnight;
+    final double imsak;
+    final double fajr;
+    final double dhuhr;
+    final double maghrib;
+    final double isha;
+    final int highLats;
+    final int midnight;
+    final TimeZone timeZone;
+    final int asrJuristic;
+    final double[] tune;
+    /**
+     * maximum number of refinement steps per time, 0 for a single pass
+     */
+    final int refineIterations;
+    /**
+     * refinement of a time stops, if it changes by less than this (in seconds)
+     */
+    final double refineTolerance;
+    /**
+     * model for the position of the sun
+     */
+    final SolarModel solarModel;
+    /**
+     * if true, the times are calculated with {@link FastDMath} instead of {@link DMath}
+     */
+    final boolean fastMath;
+
+    /**
+     * fingerprint of the settings which change the times of a day, the timezone only changes the offset
+     */
+    private final transient long timesFingerprint;
+    private final transient long fingerprint;
+
+    private Parameters(Builder builder) {
+        imsakMin = builder.imsakMin;
+        maghribMin = builder.maghribMin;
+        ishaMin = builder.ishaMin;
+        imsak = builder.imsak;
+        fajr = builder.fajr;
+        dhuhr = builder.dhuhr;
+        maghrib = builder.maghrib;
+        isha = builder.isha;
+        highLats = builder.highLats;
+        midnight = builder.midnight;
+        timeZone = (TimeZone) builder.timeZone.clone();
+        asrJuristic = builder.asrJuristic;
+        tune = builder.tune.clone();
+        refineIterations = builder.refineIterations;
+        refineTolerance = builder.refineTolerance;
+        solarModel = builder.solarModel;
+        fastMath = builder.fastMath;
+
+        long h = ResultCache.mix(0, (imsakMin ? 1 : 0) | (maghribMin ? 2 : 0) | (ishaMin ? 4 : 0));
+        h = ResultCache.mix(h, Double.doubleToLongBits(imsak));
+        h = ResultCache.mix(h, Double.doubleToLongBits(fajr));
+        h = ResultCache.mix(h, Double.doubleToLongBits(dhuhr));
+        h = ResultCache.mix(h, Double.doubleToLongBits(maghrib));
+        h = ResultCache.mix(h, Double.doubleToLongBits(isha));
+        h = ResultCache.mix(h, highLats);
+        h = ResultCache.mix(h, midnight);
+        h = ResultCache.mix(h, asrJuristic);
+        for (double t : tune) {
+            h = ResultCache.mix(h, Double.doubleToLongBits(t));
+        }
+        h = ResultCache.mix(h, refineIterations);
+        h = ResultCache.mix(h, Double.doubleToLongBits(refineTolerance));
+        String model = solarModel.getClass().getName();
+        for (int i = 0; i < model.length(); i++) {
+            h = ResultCache.mix(h, model.charAt(i));
+        }
+        h = ResultCache.mix(h, solarModel.hashCode());
+        h = ResultCache.mix(h, fastMath ? 1 : 0);
+        timesFingerprint = h;
+
+        String id = timeZone.getID();
+        for (int i = 0; i < id.length(); i++) {
+            h = ResultCache.mix(h, id.charAt(i));
+        }
+        fingerprint = ResultCache.mix(h, timeZone.getRawOffset());
+    }
+
+    /**
+     * parameters of a calculation method with the default values of all other settings
+     *
+     * @param method calculation method
+     * @return interned parameters
+     */
+    public static Parameters of(Method method) {
+        return new Builder().setMethod(method).build();
+    }
+
+    /**
+     * @return a builder with the settings of these parameters
+     */
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * get the shared instance of these parameters
+     *
+     * @return an equal instance, which is shared by all equal parameters
+     */
+    public Parameters intern() {
+        synchronized (INTERNED) {
+            WeakReference<Parameters> ref = INTERNED.get(this);
+            Parameters interned = ref == null ? null : ref.get();
+            if (interned != null) return interned;
+            INTERNED.put(this, new WeakReference<>(this));
+            return this;
+        }
+    }
+
+    /**
+     * stable 64 bit hash of all settings, equal parameters have the same fingerprint
+     *
+     * @return fingerprint
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 64 bit hash of all settings except the timezone
+     *
+     * @return fingerprint
+     */
+    long timesFingerprint() {
+        return timesFingerprint;
+    }
+
+    public double getImsakValue() {
+        return imsak;
+    }
+
+    public boolean isImsakTimeInMins() {
+        return imsakMin;
+    }
+
+    public double getFajrDegrees() {
+        return fajr;
+    }
+
+    public double getDhuhrMins() {
+        return dhuhr;
+    }
+
+    public double getMaghribValue() {
+        return maghrib;
+    }
+
+    public boolean isMaghribTimeInMins() {
+        return maghribMin;
+    }
+
+    public double getIshaValue() {
+        return isha;
+    }
+
+    public boolean isIshaTimeInMins() {
+        return ishaMin;
+    }
+
+    public int getHighLatsAdjustment() {
+        return highLats;
+    }
+
+    public int getMidnightMode() {
+        return midnight;
+    }
+
+    public int getAsrJuristic() {
+        return asrJuristic;
+    }
+
+    /**
+     * @return a copy of the timezone
+     */
+    public TimeZone getTimeZone() {
+        return (TimeZone) timeZone.clone();
+    }
+
+    /**
+     * @return maximum number of refinement steps per time, 0 for a single pass
+     */
+    public int getRefinementIterations() {
+        return refineIterations;
+    }
+
+    /**
+     * @return refinement of a time stops, if it changes by less than this (in seconds)
+     */
+    public double getRefinementTolerance() {
+        return refineTolerance;
+    }
+
+    /**
+     * @return model for the position of the sun
+     */
+    public SolarModel getSolarModel() {
+        return solarModel;
+    }
+
+    /**
+     * @return true if the times are calculated with {@link FastDMath}
+     */
+    public boolean isFastMath() {
+        return fastMath;
+    }
+
+    /**
+     * @param time TIMES_ from Constants
+     * @return tune of the time in hours
+     */
+    public double getTune(int time) {
+        return tune[time];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Parameters)) return false;
+        Parameters p = (Parameters) o;
+        return fingerprint == p.fingerprint
+                && imsakMin == p.imsakMin && maghribMin == p.maghribMin && ishaMin == p.ishaMin
+                && Double.compare(imsak, p.imsak) == 0 && Double.compare(fajr, p.fajr) == 0
+                && Double.compare(dhuhr, p.dhuhr) == 0 && Double.compare(maghrib, p.maghrib) == 0
+                && Double.compare(isha, p.isha) == 0
+                && highLats == p.highLats && midnight == p.midnight && asrJuristic == p.asrJuristic
+                && Arrays.equals(tune, p.tune)
+                && refineIterations == p.refineIterations && Double.compare(refineTolerance, p.refineTolerance) == 0
+                && solarModel.equals(p.solarModel) && fastMath == p.fastMath
+                && timeZone.getID().equals(p.timeZone.getID()) && timeZone.hasSameRules(p.timeZone);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (fingerprint ^ fingerprint >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return "Parameters{fajr=" + fajr + ", imsak=" + imsak + (imsakMin ? "min" : "°")
+                + ", dhuhr=" + dhuhr + "min, maghrib=" + maghrib + (maghribMin ? "min" : "°")
+                + ", isha=" + isha + (ishaMin ? "min" : "°") + ", highLats=" + highLats + ", midnight=" + midnight
+                + ", asrJuristic=" + asrJuristic + ", timeZone=" + timeZone.getID()
+                + ", tune=" + Arrays.toString(tune)
+                + ", refinement=" + refineIterations + "x" + refineTolerance + "s, solarModel=" + solarModel + ", fastMath=" + fastMath + "}";
+    }
+
+    /**
+     * the fingerprints are not serialized, so they are calculated again
+     *
+     * @return interned parameters
+     */
+    private Object readResolve() {
+        return toBuilder().build();
+    }
+
+    /**
+     * Builder for {@link Parameters}, the setters work like the ones of {@link PrayTimes}
+     */
+    public static final class Builder {
+        private boolean imsakMin = true;
+        private boolean maghribMin;
+        private boolean ishaMin;
+        private double imsak;
+        private double fajr;
+        private double dhuhr;
+        private double maghrib;
+        private double isha;
+        private int highLats;
+        private int midnight;
+        private TimeZone timeZone = TimeZone.getDefault();
+        private int asrJuristic;
+        private final double[] tune = {0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+        private int refineIterations;
+        private double refineTolerance;
+        private SolarModel solarModel = SolarModel.USNO;
+        private boolean fastMath;
+
+        public Builder() {
+            setMethod(Method.MWL);
+        }
+
+        private Builder(Parameters params) {
+            imsakMin = params.imsakMin;
+            maghribMin = params.maghribMin;
+            ishaMin = params.ishaMin;
+            imsak = params.imsak;
+            fajr = params.fajr;
+            dhuhr = params.dhuhr;
+            maghrib = params.maghrib;
+            isha = params.isha;
+            highLats = params.highLats;
+            midnight = params.midnight;
+            timeZone = params.timeZone;
+            asrJuristic = params.asrJuristic;
+            System.arraycopy(params.tune, 0, tune, 0, tune.length);
+            refineIterations = params.refineIterations;
+            refineTolerance = params.refineTolerance;
+            solarModel = params.solarModel;
+            fastMath = params.fastMath;
+        }
+
+        /**
+         * Sets the calculation method
+         * Attention: overrides fajr, maghrib, isha and midnight, set this as first
+         * Default: MWL
+         *
+         * @param method calculation method
+         * @return this builder
+         */
+        public Builder setMethod(Method method) {
+            fajr = method.fajr;
+            isha = method.isha;
+            maghrib = method.maghrib;
+            maghribMin = method.maghribMin;
+            ishaMin = method.ishaMin;
+            midnight = method.midnight;
+            return this;
+        }
+
+        /**
+         * Sets Imsak time in Degrees/Mins before Fajr
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setImsakTime(double value, boolean isMin) {
+            imsak = value;
+            imsakMin = isMin;
+            return this;
+        }
+
+        /**
+         * Sets Fajr time degrees
+         *
+         * @param degrees degrees
+         * @return this builder
+         */
+        public Builder setFajrDegrees(double degrees) {
+            fajr = degrees;
+            return this;
+        }
+
+        /**
+         * Sets Dhuhr time in mins after zawal/solar noon
+         *
+         * @param mins minutes
+         * @return this builder
+         */
+        public Builder setDhuhrMins(double mins) {
+            dhuhr = mins;
+            return this;
+        }
+
+        /**
+         * Sets Maghrib time in Degrees/Mins after Sunset
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setMaghribTime(double value, boolean isMin) {
+            maghrib = value;
+            maghribMin = isMin;
+            return this;
+        }
+
+        /**
+         * Sets Isha time in Degrees or Mins after Sunset
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setIshaTime(double value, boolean isMin) {
+            isha = value;
+            ishaMin = isMin;
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setHighLatsAdjustment(int)}
+         *
+         * @param method HIGHLAT_ from Constants
+         * @return this builder
+         */
+        public Builder setHighLatsAdjustment(int method) {
+            highLats = method;
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setMidnightMode(int)}
+         *
+         * @param mode MIDNIGHT_ from Constants
+         * @return this builder
+         */
+        public Builder setMidnightMode(int mode) {
+            midnight = mode;
+            return this;
+        }
+
+        /**
+         * TimeZone for times
+         * <p>
+         * Default: {@link TimeZone#getDefault() TimeZone.getDefault()}
+         *
+         * @param tz Timezone
+         * @return this builder
+         */
+        public Builder setTimezone(TimeZone tz) {
+            timeZone = tz;
+            return this;
+        }
+
+        /**
+         * ZoneId for times
+         *
+         * @param zone zone
+         * @return this builder
+         */
+        public Builder setTimezone(ZoneId zone) {
+            timeZone = TimeZone.getTimeZone(zone);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setAsrJuristic(int)}
+         *
+         * @param asr JURISTIC_ from Constants
+         * @return this builder
+         */
+        public Builder setAsrJuristic(int asr) {
+            asrJuristic = asr;
+            return this;
+        }
+
+        /**
+         * tune single time
+         *
+         * @param time TIMES_ from Constants
+         * @param tune hours
+         * @return this builder
+         */
+        public Builder tune(int time, double tune) {
+            this.tune[time] = tune;
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setRefinement(int, double)}
+         *
+         * @param maxIterations maximum number of refinement steps per time, 0 for a single pass
+         * @param tolerance     refinement of a time stops, if it changes by less than this (in seconds)
+         * @return this builder
+         */
+        public Builder setRefinement(int maxIterations, double tolerance) {
+            if (maxIterations < 0 || tolerance < 0) {
+                throw new IllegalArgumentException("maxIterations and tolerance must not be negative");
+            }
+            refineIterations = maxIterations;
+            refineTolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setSolarModel(SolarModel)}
+         *
+         * @param model model for the position of the sun
+         * @return this builder
+         */
+        public Builder setSolarModel(SolarModel model) {
+            if (model == null) throw new IllegalArgumentException("model must not be null");
+            solarModel = model;
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setFastMath(boolean)}
+         *
+         * @param fastMath true to calculate the times with {@link FastDMath}
+         * @return this builder
+         */
+        public Builder setFastMath(boolean fastMath) {
+            this.fastMath = fastMath;
+            return this;
+        }
+
+        /**
+         * creates the parameters, later changes to this builder do not affect them
+         *
+         * @return interned parameters
+         */
+        public Parameters build() {
+            return new Parameters(this).intern();
+        }
     }
 }
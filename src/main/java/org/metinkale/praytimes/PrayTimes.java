@@ -24,24 +24,33 @@ PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
 package org.metinkale.praytimes;
 
 import java.io.Serializable;
-import java.util.Calendar;
 import java.util.TimeZone;
 
 
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class PrayTimes implements Serializable {
     private double lat, lng, elv;
-    private double jdate;
 
-    private final Parameters params = new Parameters();
+    /**
+     * immutable and interned, the setters replace it (copy on write)
+     */
+    private Parameters params = new Parameters.Builder().build();
 
     private int year;
     private int month;
     private int day;
-    private long timestamp;
+    private long epochDay;
 
     private transient String[] stringTimes;
     private transient double[] times;
+    private transient double[] timesBuffer;
+    private transient double[] scratch;
+    /**
+     * times which are already calculated, bit 1 &lt;&lt; TIMES_ from Constants
+     */
+    private transient int calculated;
+    private transient boolean offsetValid;
+    private transient double offset;
 
     public PrayTimes() {
     }
@@ -67,6 +76,7 @@ public class PrayTimes implements Serializable {
     private void clearTimes() {
         times = null;
         stringTimes = null;
+        calculated = 0;
     }
 
 
@@ -78,13 +88,12 @@ public class PrayTimes implements Serializable {
      * @param day   Date/Day of Month
      */
     public void setDate(int year, int month, int day) {
-        if (year == this.year && this.month == month && this.day == this.month) return;
+        if (year == this.year && month == this.month && day == this.day) return;
         this.year = year;
         this.month = month;
         this.day = day;
-        Calendar cal = Calendar.getInstance(params.timeZone);
-        cal.set(this.year, this.month - 1, this.day);
-        timestamp = cal.getTimeInMillis();
+        epochDay = PrayTimesCalculator.epochDay(year, month, day);
+        offsetValid = false;
         clearTimes();
     }
 
@@ -95,343 +104,163 @@ public class PrayTimes implements Serializable {
      * @return array of Times
      */
     public String getTime(int time) {
-        return getTimes()[time];
-    }
-
-    /**
-     * return prayer times for a given date
-     *
-     * @return array of Times
-     */
-    private String[] getTimes() {
-        if (stringTimes != null) return stringTimes;
-
-        double[] doubles = getTimesAsDouble();
-
-        //convert to HH:mm
-        stringTimes = new String[doubles.length];
-        for (int i = 0; i < stringTimes.length; i++) {
-            while (doubles[i] > 24) doubles[i] -= 24;
-            while (doubles[i] < 0) doubles[i] += 24;
-            stringTimes[i] = toString(doubles[i]);
+        if (stringTimes == null) stringTimes = new String[PrayTimesCalculator.TIMES_COUNT];
+        String str = stringTimes[time];
+        if (str == null) {
+            //convert to HH:mm
+            double t = getTimesAsDouble(1 << time)[time];
+            while (t > 24) t -= 24;
+            while (t < 0) t += 24;
+            str = toString(t);
+            stringTimes[time] = str;
         }
-        return stringTimes;
+        return str;
     }
 
     /**
-     * convert double time to HH:MM
+     * return prayer time for a given date in hours
      *
-     * @param time time in double
-     * @return HH:MM
+     * @param time TIME_ from Constants
+     * @return time in hours (0-24) or NaN if it does not exist at this location
      */
-    private String toString(double time) {
-        return az((int) Math.floor(time)) + ":" + az((int) (Math.round(time * 60)) % 60);
+    public double getTimeInHours(int time) {
+        return DMath.fixHour(getTimesAsDouble(1 << time)[time]);
     }
 
     /**
-     * return a two digit String of number
+     * return prayer time for a given date in minutes of day
      *
-     * @param i number
-     * @return two digit number
+     * @param time TIME_ from Constants
+     * @return time in minutes of day (0-1439) or -1 if it does not exist at this location
      */
-    private String az(int i) {
-        return i >= 10 ? "" + i : "0" + i;
+    public int getTimeInMinutes(int time) {
+        return PrayTimesCalculator.toMinutes(getTimeInHours(time));
     }
 
-
     /**
-     * return prayer times for a given date as double values
+     * return prayer time for a given date in seconds of day
      *
-     * @return array of Times
+     * @param time TIME_ from Constants
+     * @return time in seconds of day (0-86399) or -1 if it does not exist at this location
      */
-    private double[] getTimesAsDouble() {
-        if (times != null) return times;
-        jdate = julian(day, month, day) - lng / (15.0 * 24.0);
-
-        computeTimes();
-        tuneTimes();
-        return times;
+    public int getTimeInSeconds(int time) {
+        return PrayTimesCalculator.toSeconds(getTimeInHours(time));
     }
 
     /**
-     * Calculates the qibla time, if you turn yourself to the sun at that time, you are turned to qibla
-     * Note: does not exists everywhere
+     * return all prayer times for a given date in hours, does not allocate any objects once the times are calculated
      *
-     * @return Qibla Time
+     * @param times array with at least 12 elements, receives the times in hours (0-24) or NaN,
+     *              indexed by TIMES_ from Constants
      */
-    public QiblaTime getQiblaTime() {
-        getTimes();
-        Calendar cal = Calendar.getInstance(params.timeZone);
-        cal.set(year, month - 1, day, 12, 0, 0);
-        long[] qibla = new long[4];
-        qibla[0] = QiblaTimeCalculator.findQiblaTime(cal.getTimeInMillis(), lat, lng, 0);
-        qibla[1] = QiblaTimeCalculator.findQiblaTime(cal.getTimeInMillis(), lat, lng, Math.PI / 2);
-        qibla[2] = QiblaTimeCalculator.findQiblaTime(cal.getTimeInMillis(), lat, lng, -Math.PI / 2);
-        qibla[3] = QiblaTimeCalculator.findQiblaTime(cal.getTimeInMillis(), lat, lng, Math.PI);
-        double[] qiblaD = new double[4];
-        String[] qiblaS = new String[4];
-        for (int i = 0; i < 4; i++) {
-            cal.setTimeInMillis(qibla[i]);
-            qiblaD[i] = cal.get(Calendar.HOUR_OF_DAY)
-                    + cal.get(Calendar.MINUTE) / 60d
-                    + cal.get(Calendar.SECOND) / 3600d;
-            if (qiblaD[i] < times[Constants.TIMES_SUNRISE] || qiblaD[i] > times[Constants.TIMES_SUNSET]) {
-                qiblaD[i] = 0;
-                qiblaS[i] = null;
-            } else {
-                qiblaS[i] = toString(qiblaD[i]);
-            }
-
-
+    public void getTimesInHours(double[] times) {
+        getTimesAsDouble(PrayTimesCalculator.ALL_TIMES);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            times[i] = getTimeInHours(i);
         }
-        QiblaTime qt = new QiblaTime();
-        qt.front = qiblaS[0];
-        qt.right = qiblaS[1];
-        qt.left = qiblaS[2];
-        qt.back = qiblaS[3];
-
-        return qt;
-    }
-
-    /**
-     * Tune times according to user settings
-     */
-    private void tuneTimes() {
-        for (int i = 0; i < times.length; i++) {
-            times[i] += params.tune[i];
-        }
-    }
-
-
-    /**
-     * convert Gregorian date to Julian day
-     * Ref: Astronomical Algorithms by Jean Meeus
-     *
-     * @param year  year
-     * @param month month
-     * @param day   day
-     * @return julian day
-     */
-    private static double julian(int year, int month, int day) {
-        if (month <= 2) {
-            year -= 1;
-            month += 12;
-        }
-        double a = Math.floor(year / 100.0);
-        double b = (2 - a + Math.floor(a / 4.0));
-
-        return (Math.floor(365.25 * (year + 4716)) + Math.floor(30.6001 * (month + 1)) + day + b - 1524.5);
-    }
-
-    /**
-     * compute prayer times
-     */
-    private void computeTimes() {
-        // default times
-        times = new double[]{5, 5, 6, 12, 12, 13, 13, 13, 18, 18, 18, 0};
-
-        computePrayerTimes();
-
-        adjustTimes();
-
-        // add midnight time
-        times[Constants.TIMES_MIDNIGHT] = (params.midnight == Constants.MIDNIGHT_JAFARI) ?
-                times[Constants.TIMES_SUNSET] + this.timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_FAJR]) / 2.0 :
-                times[Constants.TIMES_SUNSET] + this.timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_SUNRISE]) / 2.0;
-
     }
 
     /**
-     * compute the difference between two times
+     * return all prayer times for a given date in minutes of day, does not allocate any objects once the times are calculated
      *
-     * @param time1 Time 1
-     * @param time2 Time 2
-     * @return timediff
+     * @param times array with at least 12 elements, receives the times in minutes of day (0-1439) or -1,
+     *              indexed by TIMES_ from Constants
      */
-    private double timeDiff(double time1, double time2) {
-        return DMath.fixHour(time2 - time1);
-    }
-
-    /**
-     * adjust times
-     */
-    private void adjustTimes() {
-        double offset = getTimeZoneOffset();
-        for (int i = 0; i < times.length; i++) {
-            times[i] += offset - lng / 15.0;
+    public void getTimesInMinutes(int[] times) {
+        getTimesAsDouble(PrayTimesCalculator.ALL_TIMES);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            times[i] = getTimeInMinutes(i);
         }
-
-        if (params.highLats != Constants.HIGHLAT_NONE)
-            adjustHighLats();
-
-        if (params.imsakMin)
-            times[Constants.TIMES_IMSAK] = times[Constants.TIMES_FAJR] - (params.imsak) / 60.0;
-        if (params.maghribMin)
-            times[Constants.TIMES_MAGHRIB] = times[Constants.TIMES_SUNSET] + (params.maghrib) / 60.0;
-        if (params.ishaMin)
-            times[Constants.TIMES_ISHA] = times[Constants.TIMES_MAGHRIB] + (params.isha) / 60.0;
-        times[Constants.TIMES_DHUHR] = times[Constants.TIMES_ZAWAL] + (params.dhuhr) / 60.0;
     }
 
     /**
-     * adjust times for locations in higher latitudes
-     */
-    private void adjustHighLats() {
-        double nightTime = this.timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_SUNRISE]);
-
-        times[Constants.TIMES_IMSAK] = this.adjustHLTime(times[Constants.TIMES_IMSAK], times[Constants.TIMES_SUNRISE], (params.imsak), nightTime, true);
-        times[Constants.TIMES_FAJR] = this.adjustHLTime(times[Constants.TIMES_FAJR], times[Constants.TIMES_SUNRISE], (params.fajr), nightTime, true);
-        times[Constants.TIMES_ISHA] = this.adjustHLTime(times[Constants.TIMES_ISHA], times[Constants.TIMES_SUNSET], (params.isha), nightTime, false);
-        times[Constants.TIMES_MAGHRIB] = this.adjustHLTime(times[Constants.TIMES_MAGHRIB], times[Constants.TIMES_SUNSET], (params.maghrib), nightTime, false);
-    }
-
-    /**
-     * adjust a time for higher latitudes
+     * return all prayer times for a given date in seconds of day, does not allocate any objects once the times are calculated
      *
-     * @param time  time
-     * @param base  base
-     * @param angle angle
-     * @param night night time
-     * @param ccw   true if clock-counter-wise, false otherwise
-     * @return adjusted time
+     * @param times array with at least 12 elements, receives the times in seconds of day (0-86399) or -1,
+     *              indexed by TIMES_ from Constants
      */
-    private double adjustHLTime(double time, double base, double angle, double night, boolean ccw) {
-        double portion = this.nightPortion(angle, night);
-        double timeDiff = (ccw) ?
-                this.timeDiff(time, base) :
-                this.timeDiff(base, time);
-        if (Double.isNaN(time) || timeDiff > portion)
-            time = base + (ccw ? -portion : portion);
-        return time;
-    }
-
-    /**
-     * the night portion used for adjusting times in higher latitudes
-     *
-     * @param angle angle
-     * @param night night time
-     * @return night portion
-     */
-    private double nightPortion(double angle, double night) {
-        double method = params.highLats;
-        double portion = 1.0 / 2.0;// MidNight
-        if (method == Constants.HIGHLAT_ANGLEBASED)
-            portion = 1.0 / 60.0 * angle;
-        if (method == Constants.HIGHLAT_ONESEVENTH)
-            portion = 1.0 / 7.0;
-        return portion * night;
-    }
-
-    /**
-     * compute prayer times at given julian date
-     */
-    private void computePrayerTimes() {
-        // convert hours to day portions
-        for (int i = 0; i < times.length; i++) {
-            times[i] = times[i] / 24.0;
+    public void getTimesInSeconds(int[] times) {
+        getTimesAsDouble(PrayTimesCalculator.ALL_TIMES);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            times[i] = getTimeInSeconds(i);
         }
-
-        times[Constants.TIMES_IMSAK] = this.sunAngleTime((params.imsak), times[Constants.TIMES_IMSAK], true);
-        times[Constants.TIMES_FAJR] = this.sunAngleTime((params.fajr), times[Constants.TIMES_FAJR], true);
-        times[Constants.TIMES_SUNRISE] = this.sunAngleTime(this.riseSetAngle(), times[Constants.TIMES_SUNRISE], true);
-        times[Constants.TIMES_ZAWAL] = this.midDay(times[Constants.TIMES_ZAWAL]);
-        times[Constants.TIMES_ASR_SHAFII] = this.asrTime(Constants.JURISTIC_STANDARD, times[Constants.TIMES_ASR_SHAFII]);
-        times[Constants.TIMES_ASR_HANAFI] = this.asrTime(Constants.JURISTIC_HANAFI, times[Constants.TIMES_ASR_HANAFI]);
-        times[Constants.TIMES_ASR] = params.asrJuristic != Constants.JURISTIC_STANDARD ?
-                times[Constants.TIMES_ASR_HANAFI] : times[Constants.TIMES_ASR_SHAFII];
-        times[Constants.TIMES_SUNSET] = this.sunAngleTime(this.riseSetAngle(), times[Constants.TIMES_SUNSET], false);
-        times[Constants.TIMES_MAGHRIB] = this.sunAngleTime((params.maghrib), times[Constants.TIMES_MAGHRIB], false);
-        times[Constants.TIMES_ISHA] = this.sunAngleTime((params.isha), times[Constants.TIMES_MAGHRIB], false);
     }
 
     /**
-     * compute asr time
+     * convert double time to HH:MM
      *
-     * @param factor Shadow Factor
-     * @param time   default  time
-     * @return asr time
+     * @param time time in double
+     * @return HH:MM
      */
-    private double asrTime(int factor, double time) {
-        double decl = this.sunPositionDeclination(jdate + time);
-        double angle = -DMath.arccot(factor + DMath.tan(Math.abs(lat - decl)));
-        return this.sunAngleTime(angle, time, false);
+    private String toString(double time) {
+        return az((int) Math.floor(time)) + ":" + az((int) (Math.round(time * 60)) % 60);
     }
 
-
     /**
-     * compute the time at which sun reaches a specific angle below horizon
+     * return a two digit String of number
      *
-     * @param angle angle
-     * @param time  default time
-     * @param ccw   true if counter-clock-wise, false otherwise
-     * @return time
+     * @param i number
+     * @return two digit number
      */
-    private double sunAngleTime(double angle, double time, boolean ccw) {
-        double decl = this.sunPositionDeclination(jdate + time);
-        double noon = this.midDay(time);
-        double t = 1.0 / 15.0 * DMath.arccos((-DMath.sin(angle) - DMath.sin(decl) * DMath.sin(lat)) /
-                (DMath.cos(decl) * DMath.cos(lat)));
-        return noon + (ccw ? -t : t);
+    private String az(int i) {
+        return i >= 10 ? "" + i : "0" + i;
     }
 
-    /**
-     * compute mid-day time
-     *
-     * @param time default time
-     * @return midday time
-     */
-    private double midDay(double time) {
-        double eqt = this.equationOfTime(jdate + time);
-        return DMath.fixHour(12 - eqt);
-    }
 
     /**
-     * compute equation of time
-     * Ref: http://aa.usno.navy.mil/faq/docs/SunApprox.php
+     * return prayer times for a given date as double values, only the requested times
+     * and the times they depend on are calculated
      *
-     * @param jd julian date
-     * @return equation of time
-     */
-    private double equationOfTime(double jd) {
-        double d = jd - 2451545.0;
-        double g = DMath.fixAngle(357.529 + 0.98560028 * d);
-        double q = DMath.fixAngle(280.459 + 0.98564736 * d);
-        double l = DMath.fixAngle(q + 1.915 * DMath.sin(g) + 0.020 * DMath.sin(2 * g));
-        double e = 23.439 - 0.00000036 * d;
-        double ra = DMath.arctan2(DMath.cos(e) * DMath.sin(l), DMath.cos(l)) / 15;
-        return q / 15.0 - DMath.fixHour(ra);
+     * @param mask requested times, bit 1 &lt;&lt; TIMES_ from Constants
+     * @return array of Times, the requested ones are valid
+     */
+    private double[] getTimesAsDouble(int mask) {
+        boolean hit = times != null && (calculated & mask) == mask;
+        Metrics metrics = Instrumentation.metrics;
+        if (metrics != null) metrics.onCacheLookup(Metrics.CACHE_TIMES, hit);
+        if (hit) return times;
+        double jdate = epochDay + PrayTimesCalculator.JULIAN_EPOCH - lng / (15.0 * 24.0);
+
+        if (timesBuffer == null) {
+            timesBuffer = new double[PrayTimesCalculator.TIMES_COUNT];
+            scratch = new double[PrayTimesCalculator.TIMES_COUNT];
+        }
+        // the first request calculates only the requested times, a second one (e.g. a loop over all times)
+        // calculates all the others, the already calculated times are kept
+        int missing = (calculated == 0 ? PrayTimesCalculator.dependencies(params, mask) : PrayTimesCalculator.ALL_TIMES) & ~calculated;
+        PrayTimesCalculator.computeTimes(params, null, lat, lng, elv, jdate, getTimeZoneOffset(), missing, scratch);
+        PrayTimesCalculator.tuneTimes(params, scratch);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            if ((missing & (1 << i)) != 0) timesBuffer[i] = scratch[i];
+        }
+        times = timesBuffer;
+        calculated |= missing;
+        return times;
     }
 
     /**
-     * compute  declination angle of sun
-     * Ref: http://aa.usno.navy.mil/faq/docs/SunApprox.php
+     * Calculates the qibla time, if you turn yourself to the sun at that time, you are turned to qibla
+     * Note: does not exists everywhere
      *
-     * @param jd julian date
-     * @return declination angle of sun
+     * @return Qibla Time
      */
-    private double sunPositionDeclination(double jd) {
-        double d = jd - 2451545.0;
-        double g = DMath.fixAngle(357.529 + 0.98560028 * d);
-        double q = DMath.fixAngle(280.459 + 0.98564736 * d);
-        double l = DMath.fixAngle(q + 1.915 * DMath.sin(g) + 0.020 * DMath.sin(2 * g));
-        double e = 23.439 - 0.00000036 * d;
-        return DMath.arcsin(DMath.sin(e) * DMath.sin(l));
-    }
-
+    public QiblaTime getQiblaTime() {
+        double[] qiblaD = new double[PrayTimesCalculator.QIBLA_COUNT];
+        PrayTimesCalculator.qiblaTimes(params.solarModel, lat, lng, QiblaTimeCalculator.getQiblaBearing(lat, lng), epochDay,
+                getTimeZoneOffset(), getTimeInHours(Constants.TIMES_SUNRISE), getTimeInHours(Constants.TIMES_SUNSET), qiblaD);
+        String[] qiblaS = new String[PrayTimesCalculator.QIBLA_COUNT];
+        for (int i = 0; i < qiblaS.length; i++) {
+            qiblaS[i] = Double.isNaN(qiblaD[i]) ? null : toString(qiblaD[i]);
+        }
+        QiblaTime qt = new QiblaTime();
+        qt.front = qiblaS[Constants.QIBLA_FRONT];
+        qt.right = qiblaS[Constants.QIBLA_RIGHT];
+        qt.left = qiblaS[Constants.QIBLA_LEFT];
+        qt.back = qiblaS[Constants.QIBLA_BACK];
 
-    /**
-     * compute sun angle for sunset/sunrise
-     *
-     * @return sun angle of sunset/sunrise
-     */
-    private double riseSetAngle() {
-        //double earthRad = 6371009; // in meters
-        //double angle = DMath.arccos(earthRad/(earthRad+ elv));
-        double angle = 0.0347 * Math.sqrt(elv); // an approximation
-        return 0.833 + angle;
+        return qt;
     }
 
-
     /**
      * Sets the calculation method
      * Attention: overrides all other parameters, set this as first
@@ -440,7 +269,7 @@ public class PrayTimes implements Serializable {
      * @param method calculation method
      */
     public void setMethod(Method method) {
-        this.params.setMethod(method);
+        params = params.toBuilder().setMethod(method).build();
         clearTimes();
     }
 
@@ -451,8 +280,7 @@ public class PrayTimes implements Serializable {
      * @param isMin true if value is in mins, false if it is in degreess
      */
     public void setImsakTime(double value, boolean isMin) {
-        params.imsak = value;
-        params.imsakMin = isMin;
+        params = params.toBuilder().setImsakTime(value, isMin).build();
         clearTimes();
     }
 
@@ -462,7 +290,7 @@ public class PrayTimes implements Serializable {
      * @param degrees degrees
      */
     public void setFajrDegrees(double degrees) {
-        params.fajr = degrees;
+        params = params.toBuilder().setFajrDegrees(degrees).build();
         clearTimes();
     }
 
@@ -473,7 +301,7 @@ public class PrayTimes implements Serializable {
      * @param mins minutes
      */
     public void setDhuhrMins(double mins) {
-        params.dhuhr = mins;
+        params = params.toBuilder().setDhuhrMins(mins).build();
         clearTimes();
     }
 
@@ -484,8 +312,7 @@ public class PrayTimes implements Serializable {
      * @param isMin true if value is in mins, false if it is in degreess
      */
     public void setMaghribTime(double value, boolean isMin) {
-        params.maghrib = value;
-        params.maghribMin = isMin;
+        params = params.toBuilder().setMaghribTime(value, isMin).build();
         clearTimes();
     }
 
@@ -497,8 +324,7 @@ public class PrayTimes implements Serializable {
      * @param isMin true if value is in mins, false if it is in degreess
      */
     public void setIshaTime(double value, boolean isMin) {
-        params.isha = value;
-        params.ishaMin = isMin;
+        params = params.toBuilder().setIshaTime(value, isMin).build();
         clearTimes();
     }
 
@@ -516,7 +342,7 @@ public class PrayTimes implements Serializable {
      * @param method method
      */
     public void setHighLatsAdjustment(int method) {
-        params.highLats = method;
+        params = params.toBuilder().setHighLatsAdjustment(method).build();
         clearTimes();
     }
 
@@ -531,7 +357,7 @@ public class PrayTimes implements Serializable {
      * @param mode mode
      */
     public void setMidnightMode(int mode) {
-        params.midnight = mode;
+        params = params.toBuilder().setMidnightMode(mode).build();
         clearTimes();
     }
 
@@ -543,7 +369,8 @@ public class PrayTimes implements Serializable {
      * @param tz Timezone
      */
     public void setTimezone(TimeZone tz) {
-        params.timeZone = tz;
+        params = params.toBuilder().setTimezone(tz).build();
+        offsetValid = false;
         clearTimes();
     }
 
@@ -558,7 +385,7 @@ public class PrayTimes implements Serializable {
      * @param asr method
      */
     public void setAsrJuristic(int asr) {
-        params.asrJuristic = asr;
+        params = params.toBuilder().setAsrJuristic(asr).build();
         clearTimes();
     }
 
@@ -570,17 +397,92 @@ public class PrayTimes implements Serializable {
      * @param tune hours
      */
     public void tune(int time, double tune) {
-        params.tune[time] = tune;
+        params = params.toBuilder().tune(time, tune).build();
+        clearTimes();
+    }
+
+    /**
+     * The times are calculated in a single pass by default: the sun position of each time is evaluated
+     * at a fixed default time (e.g. 6:00 for sunrise), which is a few hours away from the actual time.
+     * The refinement evaluates the sun position again at the calculated time, until the time changes by
+     * less than the tolerance or maxIterations steps are done. Up to 48° latitude two steps change the times
+     * by up to 30 seconds and converge to 0.01 seconds. Isha changes by up to 50 minutes, because the single
+     * pass evaluates its sun position at a later day. Near 60° fajr and isha need about 5 steps.
+     * <p>
+     * Each step costs about as much as the single pass.
+     * <p>
+     * Default: 0 (single pass)
+     *
+     * @param maxIterations maximum number of refinement steps per time, 0 for a single pass
+     * @param tolerance     refinement of a time stops, if it changes by less than this (in seconds)
+     */
+    public void setRefinement(int maxIterations, double tolerance) {
+        params = params.toBuilder().setRefinement(maxIterations, tolerance).build();
+        clearTimes();
+    }
+
+    /**
+     * Sets the model for the position of the sun, which is used for the prayer times and the qibla times.
+     * See {@link SolarModel#USNO}, {@link SolarModel#NOAA} and {@link SolarModel#CHEBYSHEV}.
+     * <p>
+     * Between 1950 and 2050 the times of both models differ by less than 2 seconds up to 48° latitude,
+     * except for fajr and isha (up to 6 seconds). Near 60° fajr and isha differ by up to 70 seconds,
+     * because the sun barely reaches their angle. Use {@link #setRefinement(int, double)} as well,
+     * the error of the single pass is much larger.
+     * <p>
+     * Default: {@link SolarModel#USNO}
+     *
+     * @param model model for the position of the sun
+     */
+    public void setSolarModel(SolarModel model) {
+        params = params.toBuilder().setSolarModel(model).build();
         clearTimes();
     }
 
     /**
-     * get Timezone offset for specific date
+     * Calculates the times with the polynomial approximations of {@link FastDMath} instead of the
+     * {@link Math} functions. The times differ by less than 1e-6 seconds, the ones of
+     * {@link PrayTimesCalculator#computeLocations(double[], double[], double[], int, int, int, double[][])}
+     * by less than 0.02 seconds.
+     * <p>
+     * Default: false
+     *
+     * @param fastMath true to calculate the times with {@link FastDMath}
+     */
+    public void setFastMath(boolean fastMath) {
+        params = params.toBuilder().setFastMath(fastMath).build();
+        clearTimes();
+    }
+
+    /**
+     * Sets all parameters, e.g. parameters shared by many instances
+     *
+     * @param params parameters
+     */
+    public void setParameters(Parameters params) {
+        this.params = params;
+        offsetValid = false;
+        clearTimes();
+    }
+
+    /**
+     * @return current parameters, an immutable value which is not changed by the setters of this instance
+     */
+    public Parameters getParameters() {
+        return params;
+    }
+
+    /**
+     * get Timezone offset for specific date, cached until the date or timezone changes
      *
      * @return time zone offset
      */
     private double getTimeZoneOffset() {
-        return params.timeZone.getOffset(timestamp) / 1000.0 / 60 / 60;
+        if (!offsetValid) {
+            offset = PrayTimesCalculator.getTimeZoneOffset(params.timeZone, epochDay);
+            offsetValid = true;
+        }
+        return offset;
     }
 
 
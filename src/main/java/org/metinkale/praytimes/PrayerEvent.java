@@ -0,0 +1,79 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.time.Instant;
+
+/**
+ * A prayer time at a specific instant, returned by {@link PrayerTimeline}
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PrayerEvent {
+    private final int time;
+    private final long epochMillis;
+
+    PrayerEvent(int time, long epochMillis) {
+        this.time = time;
+        this.epochMillis = epochMillis;
+    }
+
+    /**
+     * @return TIMES_ from Constants
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * @return milliseconds since 1970-01-01T00:00Z
+     */
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    /**
+     * @return instant of the time
+     */
+    public Instant getInstant() {
+        return Instant.ofEpochMilli(epochMillis);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PrayerEvent)) return false;
+        PrayerEvent other = (PrayerEvent) o;
+        return time == other.time && epochMillis == other.epochMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * time + (int) (epochMillis ^ (epochMillis >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return time + "@" + getInstant();
+    }
+}
@@ -0,0 +1,350 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.util.Arrays;
+
+/**
+ * Fires a callback at the prayer times of many subscribers
+ * <p>
+ * Every subscriber has its own location and calculator (e.g. for different methods and timezones, calculators
+ * can be shared between subscribers). Only the next time of each subscriber is calculated and kept in a
+ * hierarchical timing wheel with a resolution of one minute, after it fired, the following time is calculated.
+ * Adding, removing and firing take constant time, advancing by one minute only touches the subscribers, which
+ * are due in that minute.
+ * <p>
+ * The subscribers are stored in primitive arrays, using about 40 bytes per subscriber. Coordinates are stored as
+ * float, which is precise to about one meter.
+ * <p>
+ * Times fire in the minute they are rounded to, call {@link #advance(long)} at least once a minute,
+ * e.g. from a ScheduledExecutorService. Not thread-safe, use it from one thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PrayerScheduler {
+    /**
+     * called for each prayer time of a subscriber
+     */
+    public interface Listener {
+        /**
+         * @param subscriber  subscriber id from {@link #add(PrayTimesCalculator, double, double, double)}
+         * @param time        TIMES_ from Constants
+         * @param epochMillis exact time in milliseconds since 1970-01-01T00:00Z
+         */
+        void onPrayerTime(int subscriber, int time, long epochMillis);
+    }
+
+    private static final long MINUTE_MILLIS = 60 * 1000;
+    private static final int SLOT_BITS = 8;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 3;
+    private static final int NONE = -1;
+    private static final int DEFAULT_MASK = PrayTimesCalculator.mask(PrayerTimeline.DEFAULT_TIMES);
+    /**
+     * time of a subscriber without any time in the searched days, it is searched again at its due time
+     */
+    private static final byte RETRY = -1;
+    /**
+     * a search covers at least this time after its start
+     */
+    private static final long RETRY_MILLIS = (PrayerTimeline.MAX_DAYS - 2) * PrayTimesCalculator.DAY_MILLIS;
+
+    private final Listener listener;
+    /**
+     * first subscriber of each bucket (level * 256 + slot)
+     */
+    private final int[] heads = new int[LEVELS * SLOTS];
+    private final long[] dayMillis = new long[PrayTimesCalculator.TIMES_COUNT];
+    private final double[] scratch = new double[PrayTimesCalculator.TIMES_COUNT];
+    private final PrayerTimeline.Days days = this::day;
+    /**
+     * subscriber, which is armed, see {@link #day(long)}
+     */
+    private int armed;
+    /**
+     * current minute since 1970-01-01T00:00Z, all times up to this minute have been fired
+     */
+    private long now;
+
+    // subscribers
+    private float[] lat, lng, elv;
+    private PrayTimesCalculator[] calculators;
+    private long[] due;
+    private byte[] time;
+    private short[] mask;
+    private short[] bucket;
+    private int[] next, prev;
+    private int capacity;
+    private int size;
+    private int used;
+    private int free = NONE;
+
+    /**
+     * creates a scheduler
+     *
+     * @param listener    listener for all subscribers
+     * @param epochMillis start time, times before it are not fired
+     */
+    public PrayerScheduler(Listener listener, long epochMillis) {
+        this(listener, epochMillis, 1024);
+    }
+
+    /**
+     * creates a scheduler
+     *
+     * @param listener    listener for all subscribers
+     * @param epochMillis start time, times before it are not fired
+     * @param capacity    initial number of subscribers, the capacity grows if needed
+     */
+    public PrayerScheduler(Listener listener, long epochMillis, int capacity) {
+        this.listener = listener;
+        this.now = Math.floorDiv(epochMillis, MINUTE_MILLIS);
+        Arrays.fill(heads, NONE);
+        resize(Math.max(16, capacity));
+    }
+
+    /**
+     * adds a subscriber for fajr, sunrise, dhuhr, asr, maghrib and isha
+     *
+     * @param calculator calculator
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     * @return subscriber id, ids of removed subscribers are reused
+     */
+    public int add(PrayTimesCalculator calculator, double lat, double lng, double elv) {
+        return add(calculator, lat, lng, elv, DEFAULT_MASK);
+    }
+
+    /**
+     * adds a subscriber for the given times
+     *
+     * @param calculator calculator
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     * @param times      TIMES_ from Constants
+     * @return subscriber id, ids of removed subscribers are reused
+     */
+    public int add(PrayTimesCalculator calculator, double lat, double lng, double elv, int... times) {
+        return add(calculator, lat, lng, elv, PrayTimesCalculator.mask(times));
+    }
+
+    private int add(PrayTimesCalculator calculator, double lat, double lng, double elv, int timesMask) {
+        int id;
+        if (free != NONE) {
+            id = free;
+            free = next[id];
+        } else {
+            if (used == capacity) resize(capacity * 2);
+            id = used++;
+        }
+        this.lat[id] = (float) lat;
+        this.lng[id] = (float) lng;
+        this.elv[id] = (float) elv;
+        this.calculators[id] = calculator;
+        this.mask[id] = (short) timesMask;
+        size++;
+        arm(id, now * MINUTE_MILLIS + MINUTE_MILLIS / 2 - 1);
+        return id;
+    }
+
+    /**
+     * removes a subscriber
+     *
+     * @param subscriber subscriber id
+     */
+    public void remove(int subscriber) {
+        if (subscriber < 0 || subscriber >= used || calculators[subscriber] == null) {
+            throw new IllegalArgumentException("unknown subscriber " + subscriber);
+        }
+        unlink(subscriber);
+        calculators[subscriber] = null;
+        next[subscriber] = free;
+        free = subscriber;
+        size--;
+    }
+
+    /**
+     * @return number of subscribers
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param subscriber subscriber id
+     * @return next time in milliseconds since 1970-01-01T00:00Z, or {@link PrayTimesCalculator#NO_TIME}
+     * if none of the times exists within the next year, the subscriber is checked again a year later
+     */
+    public long getNextTime(int subscriber) {
+        return bucket[subscriber] == NONE || time[subscriber] == RETRY ? PrayTimesCalculator.NO_TIME : due[subscriber];
+    }
+
+    /**
+     * @param subscriber subscriber id
+     * @return TIMES_ from Constants of the next time, or -1 if none of the times exists within the next year
+     */
+    public int getNextPrayer(int subscriber) {
+        return bucket[subscriber] == NONE ? -1 : time[subscriber];
+    }
+
+    /**
+     * fires all times up to the given time
+     *
+     * @param epochMillis current time
+     */
+    public void advance(long epochMillis) {
+        long target = Math.floorDiv(epochMillis, MINUTE_MILLIS);
+        while (now < target) {
+            now++;
+            tick();
+        }
+    }
+
+    private void tick() {
+        // move the subscribers of the higher levels, which are due in the next block, down one level
+        for (int level = LEVELS - 1; level > 0; level--) {
+            if ((now & ((1L << (level * SLOT_BITS)) - 1)) == 0) {
+                cascade(level * SLOTS + (int) ((now >>> (level * SLOT_BITS)) & SLOT_MASK));
+            }
+        }
+
+        // subscribers are taken one by one, so the listener can add and remove subscribers
+        int slot = (int) (now & SLOT_MASK);
+        int id;
+        while ((id = heads[slot]) != NONE) {
+            unlink(id);
+            long firedAt = due[id];
+            int fired = time[id];
+            arm(id, firedAt);
+            if (fired == RETRY) continue;
+            try {
+                listener.onPrayerTime(id, fired, firedAt);
+            } catch (RuntimeException | Error e) {
+                // keep the remaining subscribers of this minute, they fire in the next minute
+                int rest;
+                while ((rest = heads[slot]) != NONE) {
+                    unlink(rest);
+                    link(rest, now + 1);
+                }
+                throw e;
+            }
+        }
+    }
+
+    private void cascade(int b) {
+        int id = heads[b];
+        heads[b] = NONE;
+        while (id != NONE) {
+            int following = next[id];
+            link(id, minute(due[id]));
+            id = following;
+        }
+    }
+
+    /**
+     * calculates the first time after the given time and puts the subscriber into the wheel
+     *
+     * @param id    subscriber
+     * @param after time in milliseconds
+     */
+    private void arm(int id, long after) {
+        armed = id;
+        PrayerEvent event = PrayerTimeline.next(days, Math.round(lng[id] / 15 * 60 * 60 * 1000), mask[id], after);
+        if (event == null) {
+            // no time within the next year (e.g. polar regions without high latitude adjustment),
+            // the subscriber is searched again, when the searched days are over
+            due[id] = after + RETRY_MILLIS;
+            time[id] = RETRY;
+        } else {
+            due[id] = event.getEpochMillis();
+            time[id] = (byte) event.getTime();
+        }
+        link(id, minute(due[id]));
+    }
+
+    /**
+     * @param day solar day
+     * @return times of the armed subscriber on that day as epoch milliseconds
+     */
+    private long[] day(long day) {
+        calculators[armed].computeEpochMillis(lat[armed], lng[armed], elv[armed], day, mask[armed], dayMillis, scratch);
+        return dayMillis;
+    }
+
+    /**
+     * @param millis time in milliseconds
+     * @return minute, the time is rounded to
+     */
+    private static long minute(long millis) {
+        return Math.floorDiv(millis + MINUTE_MILLIS / 2, MINUTE_MILLIS);
+    }
+
+    /**
+     * puts a subscriber into the bucket of the given minute, subscribers due in the current minute
+     * are fired by the running tick (e.g. two times in the same minute)
+     */
+    private void link(int id, long minute) {
+        if (minute < now) minute = now;
+        long delta = minute - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << ((level + 1) * SLOT_BITS)) level++;
+        if (delta >= 1L << (LEVELS * SLOT_BITS)) {
+            // further than the wheel, it is moved down when the top level slot is reached
+            minute = now + (1L << (LEVELS * SLOT_BITS)) - 1;
+        }
+        int b = level * SLOTS + (int) ((minute >>> (level * SLOT_BITS)) & SLOT_MASK);
+        int head = heads[b];
+        next[id] = head;
+        prev[id] = NONE;
+        if (head != NONE) prev[head] = id;
+        heads[b] = id;
+        bucket[id] = (short) b;
+    }
+
+    private void unlink(int id) {
+        int b = bucket[id];
+        if (b == NONE) return;
+        int n = next[id], p = prev[id];
+        if (p != NONE) next[p] = n;
+        else heads[b] = n;
+        if (n != NONE) prev[n] = p;
+        bucket[id] = NONE;
+    }
+
+    private void resize(int capacity) {
+        this.capacity = capacity;
+        lat = lat == null ? new float[capacity] : Arrays.copyOf(lat, capacity);
+        lng = lng == null ? new float[capacity] : Arrays.copyOf(lng, capacity);
+        elv = elv == null ? new float[capacity] : Arrays.copyOf(elv, capacity);
+        calculators = calculators == null ? new PrayTimesCalculator[capacity] : Arrays.copyOf(calculators, capacity);
+        due = due == null ? new long[capacity] : Arrays.copyOf(due, capacity);
+        time = time == null ? new byte[capacity] : Arrays.copyOf(time, capacity);
+        mask = mask == null ? new short[capacity] : Arrays.copyOf(mask, capacity);
+        bucket = bucket == null ? new short[capacity] : Arrays.copyOf(bucket, capacity);
+        next = next == null ? new int[capacity] : Arrays.copyOf(next, capacity);
+        prev = prev == null ? new int[capacity] : Arrays.copyOf(prev, capacity);
+    }
+}
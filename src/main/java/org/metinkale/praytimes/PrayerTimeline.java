@@ -0,0 +1,224 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.time.Instant;
+
+/**
+ * Finds the next and previous prayer time of a location for any instant
+ * <p>
+ * The times are calculated per solar day (around local mean noon) as epoch milliseconds, so midnight
+ * and daylight saving time changes need no special handling. The last few calculated days are kept,
+ * so stepping forward (or backward) from one time to the next calculates each day only once.
+ * Only the times of the timeline and the times they depend on are calculated.
+ * <p>
+ * Not thread-safe, use one instance per thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PrayerTimeline {
+    /**
+     * times used by {@link #PrayerTimeline(PrayTimesCalculator, double, double, double)}
+     */
+    static final int[] DEFAULT_TIMES = {Constants.TIMES_FAJR, Constants.TIMES_SUNRISE, Constants.TIMES_DHUHR,
+            Constants.TIMES_ASR, Constants.TIMES_MAGHRIB, Constants.TIMES_ISHA};
+    /**
+     * number of cached days
+     */
+    private static final int CACHED_DAYS = 4;
+    /**
+     * searching stops after this many days without any time (e.g. isha in polar summer)
+     */
+    static final int MAX_DAYS = 400;
+    /**
+     * the times of solar day n are between n * 24h - lng / 15 - EARLIEST and n * 24h - lng / 15 + LATEST,
+     * the bounds include high latitude adjustments, midnight and tuning
+     */
+    private static final long EARLIEST = 6 * 60 * 60 * 1000;
+    private static final long LATEST = 42 * 60 * 60 * 1000;
+
+    private final PrayTimesCalculator calculator;
+    private final double lat, lng, elv;
+    private final int[] times;
+    private final int mask;
+    /**
+     * local mean time offset in milliseconds
+     */
+    private final long lngMillis;
+    private final long[] keys = new long[CACHED_DAYS];
+    private final long[][] days = new long[CACHED_DAYS][PrayTimesCalculator.TIMES_COUNT];
+    private final double[] scratch = new double[PrayTimesCalculator.TIMES_COUNT];
+    private final Days cachedDays = this::day;
+
+    /**
+     * provides the times of solar days, see {@link #next(Days, long, int, long)}
+     */
+    interface Days {
+        /**
+         * @param day solar day
+         * @return times of the day as epoch milliseconds, or NO_TIME if a time does not exist
+         */
+        long[] day(long day);
+    }
+
+    /**
+     * creates a timeline with fajr, sunrise, dhuhr, asr, maghrib and isha
+     *
+     * @param calculator calculator
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     */
+    public PrayerTimeline(PrayTimesCalculator calculator, double lat, double lng, double elv) {
+        this(calculator, lat, lng, elv, DEFAULT_TIMES);
+    }
+
+    /**
+     * creates a timeline with the given times
+     *
+     * @param calculator calculator
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     * @param times      TIMES_ from Constants, which are returned by next and previous
+     */
+    public PrayerTimeline(PrayTimesCalculator calculator, double lat, double lng, double elv, int... times) {
+        this.mask = PrayTimesCalculator.mask(times);
+        this.calculator = calculator;
+        this.lat = lat;
+        this.lng = lng;
+        this.elv = elv;
+        this.times = times.clone();
+        this.lngMillis = Math.round(lng / 15 * 60 * 60 * 1000);
+        for (int i = 0; i < CACHED_DAYS; i++) {
+            keys[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * get the first time after an instant
+     *
+     * @param instant instant
+     * @return next time or null, if none of the times exists within the next year
+     */
+    public PrayerEvent next(Instant instant) {
+        return next(instant.toEpochMilli());
+    }
+
+    /**
+     * get the first time after an instant
+     *
+     * @param epochMillis milliseconds since 1970-01-01T00:00Z
+     * @return next time or null, if none of the times exists within the next year
+     */
+    public PrayerEvent next(long epochMillis) {
+        return next(cachedDays, lngMillis, mask, epochMillis);
+    }
+
+    /**
+     * get the first of some times after an instant, used by the timeline and {@link PrayerScheduler}
+     *
+     * @param days      times of the solar days
+     * @param lngMillis local mean time offset of the location in milliseconds
+     * @param mask      bitmask of the TIMES_ from Constants
+     * @param after     milliseconds since 1970-01-01T00:00Z
+     * @return next time or null, if none of the times exists within the next {@link #MAX_DAYS} days
+     */
+    static PrayerEvent next(Days days, long lngMillis, int mask, long after) {
+        long day = Math.floorDiv(after + lngMillis, PrayTimesCalculator.DAY_MILLIS);
+        long best = PrayTimesCalculator.NO_TIME;
+        int bestTime = -1;
+        for (long d = day - 1; d <= day + MAX_DAYS; d++) {
+            // times of later days can not be earlier than the best one
+            if (best != PrayTimesCalculator.NO_TIME && best < d * PrayTimesCalculator.DAY_MILLIS - lngMillis - EARLIEST) break;
+            long[] millis = days.day(d);
+            for (int time = 0; time < PrayTimesCalculator.TIMES_COUNT; time++) {
+                long t = millis[time];
+                if ((mask & (1 << time)) != 0 && t != PrayTimesCalculator.NO_TIME && t > after
+                        && (best == PrayTimesCalculator.NO_TIME || t < best)) {
+                    best = t;
+                    bestTime = time;
+                }
+            }
+        }
+        return bestTime < 0 ? null : new PrayerEvent(bestTime, best);
+    }
+
+    /**
+     * get the last time at or before an instant, e.g. the current prayer
+     *
+     * @param instant instant
+     * @return previous time or null, if none of the times exists within the last year
+     */
+    public PrayerEvent previous(Instant instant) {
+        return previous(instant.toEpochMilli());
+    }
+
+    /**
+     * get the last time at or before an instant, e.g. the current prayer
+     *
+     * @param epochMillis milliseconds since 1970-01-01T00:00Z
+     * @return previous time or null, if none of the times exists within the last year
+     */
+    public PrayerEvent previous(long epochMillis) {
+        long day = solarDay(epochMillis);
+        long best = PrayTimesCalculator.NO_TIME;
+        int bestTime = -1;
+        for (long d = day + 1; d >= day - MAX_DAYS; d--) {
+            // times of earlier days can not be later than the best one
+            if (best != PrayTimesCalculator.NO_TIME && best > d * PrayTimesCalculator.DAY_MILLIS - lngMillis + LATEST) break;
+            long[] millis = day(d);
+            for (int time : times) {
+                long t = millis[time];
+                if (t != PrayTimesCalculator.NO_TIME && t <= epochMillis && (best == PrayTimesCalculator.NO_TIME || t > best)) {
+                    best = t;
+                    bestTime = time;
+                }
+            }
+        }
+        return bestTime < 0 ? null : new PrayerEvent(bestTime, best);
+    }
+
+    /**
+     * @param epochMillis milliseconds since 1970-01-01T00:00Z
+     * @return solar day (local mean time) of the instant
+     */
+    private long solarDay(long epochMillis) {
+        return Math.floorDiv(epochMillis + lngMillis, PrayTimesCalculator.DAY_MILLIS);
+    }
+
+    /**
+     * @param day solar day
+     * @return times of the day as epoch milliseconds, calculated if it is not cached
+     */
+    private long[] day(long day) {
+        int slot = (int) Math.floorMod(day, (long) CACHED_DAYS);
+        Metrics metrics = Instrumentation.metrics;
+        if (metrics != null) metrics.onCacheLookup(Metrics.CACHE_TIMELINE, keys[slot] == day);
+        if (keys[slot] != day) {
+            calculator.computeEpochMillis(lat, lng, elv, day, mask, days[slot], scratch);
+            keys[slot] = day;
+        }
+        return days[slot];
+    }
+}
@@ -35,53 +35,147 @@ package org.metinkale.praytimes;
 /**
  * calculates qibla angle based on location and date
  * <p>
- * Note: might be a inefficient solution (searching for correct angle in loop), but you are welcome to help me improving it
- * i do not have enough knowledge in this field, so i had to use existing codes for the sun azimuth calculation
+ * The time at which the sun has a given azimuth is solved in closed form for the hour angle, the slowly changing
+ * declination and right ascension of the sun are refined by a fixed-point iteration,
+ * which converges to a millisecond in 2-3 steps. The sun position is calculated by the {@link SolarModel}
+ * of the parameters.
  */
 class QiblaTimeCalculator {
+    /**
+     * maximum number of refinement steps, each step reduces the error by a factor of about 300
+     */
+    private static final int MAX_ITERATIONS = 5;
+    /**
+     * refinement stops, if the time changes by less than this (in days, about 1ms)
+     */
+    private static final double TOLERANCE = 1e-8;
 
     //==========================Qibla Calculation Code==========================
 
     /**
      * calculates the qibla angle, for looking to the sun, or turning away from sun
      *
-     * @param mills     time
+     * @param mills     time, the solution nearest to this time is returned
      * @param lat       latitude
      * @param lng       longitude
      * @param direction 0: qibla on sun direction,
      *                  +-PI/2: qibla on left, when looking at sun,
      *                  wPI: qibla on front of person, if he turns back from the sun
-     * @return time
+     * @return time or {@link PrayTimesCalculator#NO_TIME}, if the sun never has this azimuth on that day
      */
     static long findQiblaTime(long mills, double lat, double lng, double direction) {
-        long inputMills = mills;
-        double angle = getAngle(lat, lng);
-        if (direction != 0)
-            angle = (angle + direction) % (2 * Math.PI);
-
-        double azimuth = 0;
-        double last = 0;
-        double add = 1;
-        int i = 0;
-        while (Math.abs(angle - azimuth) > 0.0001) {
-            azimuth = Math.PI + getAzimuth(mills, lat, lng);
-            if ((azimuth > angle && angle > last) || (last > angle && angle > azimuth)) {
-                add *= -0.5;
-            }
-            if (azimuth == last) {
-                return 0;
-            }
-            mills += (int) (add * 10000000);
-            last = azimuth;
-            i++;
-            if (i > 100 || Math.abs(inputMills - mills) > 1000 * 60 * 60 * 24) {
-                return 0;
+        return findTime(SolarModel.USNO, mills, lat, lng, getAngle(lat, lng) + direction);
+    }
+
+    /**
+     * calculates the time at which the sun has the given bearing,
+     * use this with {@link #getQiblaBearing(double, double)} to avoid calculating the bearing again for every time
+     *
+     * @param model   sun model
+     * @param mills   time, the solution nearest to this time is returned
+     * @param lat     latitude
+     * @param lng     longitude
+     * @param bearing bearing of the sun in radians (clockwise from north)
+     * @return time or {@link PrayTimesCalculator#NO_TIME}, if the sun never has this bearing on that day
+     */
+    static long findTime(SolarModel model, long mills, double lat, double lng, double bearing) {
+        // SunCalc azimuth is measured from south
+        double azimuth = bearing - Math.PI;
+        double sinA = Math.sin(azimuth);
+        double cosA = Math.cos(azimuth);
+        double lw = rad * -lng;
+        double phi = rad * lat;
+
+        double J = dateToJulianDate(mills);
+        double[] position = new double[3];
+        Metrics metrics = Instrumentation.metrics;
+        int iterations = 0;
+        while (iterations < MAX_ITERATIONS) {
+            iterations++;
+            model.compute(J, position);
+            double d = position[SolarModel.DECLINATION];
+            double a = position[SolarModel.RIGHT_ASCENSION];
+            double H0 = getSiderealTime(J, lw) - a;
+
+            double H = getHourAngle(azimuth, sinA, cosA, phi, d, H0);
+            if (Double.isNaN(H)) {
+                if (metrics != null) metrics.onQiblaSearch(iterations, false);
+                return PrayTimesCalculator.NO_TIME;
             }
+
+            // nearest time at which the sun has this hour angle
+            double next = J + wrap(H - H0) / th1;
+            boolean converged = Math.abs(next - J) < TOLERANCE;
+            J = next;
+            if (converged) break;
         }
+        if (metrics != null) metrics.onQiblaSearch(iterations, true);
 
-        return mills;
+        return Math.round((J + 0.5 - J1970) * dayMs);
     }
 
+    /**
+     * solves the azimuth formula for the hour angle
+     * <p>
+     * tan(A) = sin(H) / (cos(H) * sin(phi) - tan(d) * cos(phi)) can be written as
+     * cos(A) * sin(H) - sin(A) * sin(phi) * cos(H) = -sin(A) * tan(d) * cos(phi),
+     * which has up to two solutions per day
+     *
+     * @param azimuth azimuth (from south)
+     * @param sinA    sine of azimuth
+     * @param cosA    cosine of azimuth
+     * @param phi     latitude in radians
+     * @param d       declination in radians
+     * @param H0      hour angle of the current estimate, the nearest solution is returned
+     * @return hour angle or NaN if there is no solution
+     */
+    private static double getHourAngle(double azimuth, double sinA, double cosA, double phi, double d, double H0) {
+        double a = cosA;
+        double b = -sinA * Math.sin(phi);
+        double c = -sinA * Math.tan(d) * Math.cos(phi);
+        double r = Math.sqrt(a * a + b * b);
+        if (r == 0 || Math.abs(c) > r) return Double.NaN;
+
+        // a * sin(H) + b * cos(H) = r * sin(H + psi)
+        double psi = Math.atan2(b, a);
+        double x = Math.asin(c / r);
+        double H1 = x - psi;
+        double H2 = Math.PI - x - psi;
+
+        // the formula does not distinguish between A and A + PI
+        boolean valid1 = Math.abs(wrap(getAzimuth(H1, phi, d) - azimuth)) < 1e-6;
+        boolean valid2 = Math.abs(wrap(getAzimuth(H2, phi, d) - azimuth)) < 1e-6;
+        if (valid1 && valid2) {
+            return Math.abs(wrap(H1 - H0)) <= Math.abs(wrap(H2 - H0)) ? H1 : H2;
+        } else if (valid1) {
+            return H1;
+        } else if (valid2) {
+            return H2;
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * normalizes an angle to -PI..PI
+     *
+     * @param angle angle in radians
+     * @return angle in radians (-PI..PI)
+     */
+    private static double wrap(double angle) {
+        return angle - 2 * Math.PI * Math.floor(angle / (2 * Math.PI) + 0.5);
+    }
+
+
+    /**
+     * bearing of mecca
+     *
+     * @param lat latitude
+     * @param lng longitude
+     * @return bearing of mecca in radians (clockwise from north)
+     */
+    static double getQiblaBearing(double lat, double lng) {
+        return getAngle(lat, lng);
+    }
 
     /**
      * get angle to mecca
@@ -130,13 +224,6 @@ class QiblaTimeCalculator {
     private final static double dayMs = 1000 * 60 * 60 * 24;
     private final static double J1970 = 2440588;
     private final static double J2000 = 2451545;
-    private final static double M0 = rad * 357.5291;
-    private final static double M1 = rad * 0.98560028;
-    private final static double C1 = rad * 1.9148;
-    private final static double C2 = rad * 0.0200;
-    private final static double C3 = rad * 0.0003;
-    private final static double P = rad * 102.9372;
-    private final static double e = rad * 23.45;
     private final static double th0 = rad * 280.1600;
     private final static double th1 = rad * 360.9856235;
 
@@ -144,28 +231,6 @@ class QiblaTimeCalculator {
         return mills / dayMs - 0.5 + J1970;
     }
 
-
-    private static double getSolarMeanAnomaly(double Js) {
-        return M0 + M1 * (Js - J2000);
-    }
-
-    private static double getEquationOfCenter(double M) {
-        return C1 * Math.sin(M) + C2 * Math.sin(2 * M) + C3 * Math.sin(3 * M);
-    }
-
-    private static double getEclipticLongitude(double M, double C) {
-        return M + P + C + Math.PI;
-    }
-
-    private static double getSunDeclination(double Ls) {
-        return Math.asin(Math.sin(Ls) * Math.sin(e));
-    }
-
-
-    private static double getRightAscension(double Ls) {
-        return Math.atan2(Math.sin(Ls) * Math.cos(e), Math.cos(Ls));
-    }
-
     private static double getSiderealTime(double J, double lw) {
         return th0 + th1 * (J - J2000) - lw;
     }
@@ -175,20 +240,4 @@ class QiblaTimeCalculator {
                 Math.cos(H) * Math.sin(phi) - Math.tan(d) * Math.cos(phi));
     }
 
-
-    private static double getAzimuth(long mills, double lat,
-                                     double lng) {
-        double lw = rad * -lng;
-        double phi = rad * lat;
-        double J = dateToJulianDate(mills);
-        double M = getSolarMeanAnomaly(J);
-        double C = getEquationOfCenter(M);
-        double Ls = getEclipticLongitude(M, C);
-        double d = getSunDeclination(Ls);
-        double a = getRightAscension(Ls);
-        double th = getSiderealTime(J, lw);
-        double H = th - a;
-
-        return getAzimuth(H, phi, d);
-    }
 }
\ No newline at end of file
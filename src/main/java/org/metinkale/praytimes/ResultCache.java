@@ -0,0 +1,298 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded and thread-safe cache for calculated prayer times
+ * <p>
+ * The times are cached by location, configuration and day. The coordinates are rounded to a configurable
+ * precision and the elevation to a configurable step before the calculation, so near locations (e.g. all
+ * requests for the same city or mosque) share one entry and always get the same times. The configuration
+ * is compared by a 64 bit fingerprint of the parameters, so calculators with the same settings share their
+ * entries too.
+ * <p>
+ * The cache is split into segments, each segment evicts its least recently used entries if it is full.
+ * Entries can also expire after a fixed time. Expired entries are removed when they are looked up, and
+ * from the least recently used end of a segment when a new entry is added to it.
+ * <p>
+ * One instance can be shared by any number of {@link PrayTimesCalculator}s and threads,
+ * see {@link PrayTimesCalculator.Builder#setResultCache(ResultCache)}
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ResultCache {
+    private static final int MAX_SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int mask;
+    /**
+     * inverse of the precision and the elevation step, dividing by them gives the nearest double
+     * of decimal steps like 0.001
+     */
+    private final double scale;
+    private final double elevationScale;
+    private final long expireNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * creates a cache with a precision of 0.001° (about 100 m) and elevation steps of 10 m, entries do not expire
+     *
+     * @param maximumSize maximum number of entries (one per location and day)
+     */
+    public ResultCache(int maximumSize) {
+        this(maximumSize, 0.001, 10, 0);
+    }
+
+    /**
+     * creates a cache
+     * <p>
+     * one degree of longitude changes the times by 4 minutes, so a precision of 0.001° changes them
+     * by at most 0.12 seconds
+     *
+     * @param maximumSize       maximum number of entries (one per location and day)
+     * @param precision         precision of latitude and longitude in degrees, 0 to not round them
+     * @param elevationStep     precision of the elevation in meters, 0 to not round it
+     * @param expireAfterMillis time after which an entry expires, 0 to keep entries until they are evicted
+     */
+    public ResultCache(int maximumSize, double precision, double elevationStep, long expireAfterMillis) {
+        if (maximumSize <= 0) throw new IllegalArgumentException("maximumSize must be positive");
+        if (precision < 0 || elevationStep < 0 || expireAfterMillis < 0) {
+            throw new IllegalArgumentException("precision, elevationStep and expireAfterMillis must not be negative");
+        }
+        int count = 1;
+        while (count < MAX_SEGMENTS && count * 2 <= maximumSize) count <<= 1;
+        segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maximumSize / count);
+        }
+        mask = count - 1;
+        this.scale = precision == 0 ? 0 : 1 / precision;
+        this.elevationScale = elevationStep == 0 ? 0 : 1 / elevationStep;
+        this.expireNanos = expireAfterMillis * 1000000;
+    }
+
+    /**
+     * @return number of lookups which found their times in the cache
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of lookups which had to calculate their times
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of entries which were removed because the cache was full or they expired
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * removes all entries, the counters are not reset
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * get the times of a day from the cache, calculates and stores them if they are not in the cache
+     * <p>
+     * the times are calculated outside of the lock, so two threads may calculate the same entry at the same time
+     *
+     * @param calculator calculator
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     * @param epochDay   days since 1970-01-01
+     * @param offset     time zone offset in hours
+     * @param times      array with at least 12 elements, receives the tuned and normalized times in hours (0-24)
+     */
+    void computeDay(PrayTimesCalculator calculator, double lat, double lng, double elv, long epochDay, double offset,
+                    double[] times) {
+        lat = round(lat, scale);
+        lng = round(lng, scale);
+        elv = round(elv, elevationScale);
+        Key key = new Key(lat, lng, elv, calculator.getFingerprint(), epochDay, offset);
+        Segment segment = segments[(int) (key.hash ^ key.hash >>> 32) & mask];
+
+        Value entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && expireNanos > 0 && System.nanoTime() - entry.created > expireNanos) {
+                segment.remove(key);
+                entry = null;
+                evictions.increment();
+            }
+        }
+        Metrics metrics = Instrumentation.metrics;
+        if (metrics != null) metrics.onCacheLookup(Metrics.CACHE_RESULTS, entry != null);
+        if (entry != null) {
+            hits.increment();
+            System.arraycopy(entry.times, 0, times, 0, PrayTimesCalculator.TIMES_COUNT);
+            return;
+        }
+
+        misses.increment();
+        calculator.computeDayDirect(lat, lng, elv, epochDay, offset, times);
+        entry = new Value(times, expireNanos > 0 ? System.nanoTime() : 0);
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * round a value to a multiple of a step
+     *
+     * @param value value
+     * @param scale inverse of the step, 0 to keep the value
+     * @return rounded value
+     */
+    private static double round(double value, double scale) {
+        return scale == 0 ? value : Math.round(value * scale) / scale;
+    }
+
+    /**
+     * mix a value into a 64 bit hash
+     *
+     * @param hash  hash
+     * @param value value
+     * @return new hash
+     */
+    static long mix(long hash, long value) {
+        long h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ h >>> 32;
+    }
+
+    /**
+     * lookup key of an entry
+     */
+    private static final class Key {
+        final long lat, lng, elv, fingerprint, epochDay, offset;
+        final long hash;
+
+        Key(double lat, double lng, double elv, long fingerprint, long epochDay, double offset) {
+            this.lat = Double.doubleToLongBits(lat);
+            this.lng = Double.doubleToLongBits(lng);
+            this.elv = Double.doubleToLongBits(elv);
+            this.fingerprint = fingerprint;
+            this.epochDay = epochDay;
+            this.offset = Double.doubleToLongBits(offset);
+            long h = mix(fingerprint, this.lat);
+            h = mix(h, this.lng);
+            h = mix(h, this.elv);
+            h = mix(h, epochDay);
+            hash = mix(h, this.offset);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return lat == key.lat && lng == key.lng && elv == key.elv && fingerprint == key.fingerprint
+                    && epochDay == key.epochDay && offset == key.offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) hash;
+        }
+    }
+
+    /**
+     * cached times, never changed after creation
+     */
+    private static final class Value {
+        final double[] times;
+        final long created;
+
+        Value(double[] times, long created) {
+            this.times = new double[PrayTimesCalculator.TIMES_COUNT];
+            System.arraycopy(times, 0, this.times, 0, this.times.length);
+            this.created = created;
+        }
+    }
+
+    /**
+     * least recently used entries of one part of the keys, guarded by its own monitor
+     */
+    private final class Segment extends LinkedHashMap<Key, Value> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        /**
+         * removes the least recently used entries while the segment is full or they are expired, the map is
+         * modified directly so this always returns false
+         */
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Value> eldest) {
+            long now = expireNanos > 0 ? System.nanoTime() : 0;
+            Iterator<Value> values = values().iterator();
+            while (values.hasNext()) {
+                Value value = values.next();
+                if (size() <= capacity && (expireNanos == 0 || now - value.created <= expireNanos)) break;
+                values.remove();
+                evictions.increment();
+            }
+            return false;
+        }
+    }
+}
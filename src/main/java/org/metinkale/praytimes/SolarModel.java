@@ -0,0 +1,79 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.Serializable;
+
+/**
+ * Model for the apparent position of the sun, used for the prayer times and the qibla times
+ * <p>
+ * {@link #USNO} is the fast default, {@link #NOAA} is more precise, but calculating a day takes about 1.5 times as long.
+ * {@link #CHEBYSHEV} has the precision of NOAA and is faster than USNO, but loads a table of 150 kB.
+ * See {@link Parameters.Builder#setSolarModel(SolarModel)}.
+ * <p>
+ * Implementations must be stateless and thread-safe. The {@link Parameters#getFingerprint() fingerprint}
+ * of the parameters includes the class name and {@link #hashCode()} of the model, so a model should
+ * implement hashCode and equals, if it has settings.
+ */
+@SuppressWarnings("WeakerAccess")
+public interface SolarModel extends Serializable {
+    /**
+     * index of the declination in radians
+     */
+    int DECLINATION = 0;
+    /**
+     * index of the right ascension in radians
+     */
+    int RIGHT_ASCENSION = 1;
+    /**
+     * index of the equation of time in hours (-12 to 12)
+     */
+    int EQUATION_OF_TIME = 2;
+
+    /**
+     * low precision formulas of the U.S. Naval Observatory, accurate to about 1 arcminute between 1950 and 2050
+     * Ref: http://aa.usno.navy.mil/faq/docs/SunApprox.php
+     */
+    SolarModel USNO = new UsnoSolarModel();
+    /**
+     * formulas of Jean Meeus (Astronomical Algorithms, chapter 25) as used by the NOAA solar calculator,
+     * with nutation and aberration, accurate to about 0.01° between 1800 and 2200
+     */
+    SolarModel NOAA = new NoaaSolarModel();
+    /**
+     * the {@link #NOAA} model between 1900 and 2100, precomputed as Chebyshev polynomials,
+     * which are evaluated without trigonometric functions. The maximum error against NOAA is 0.005 arcseconds
+     * for the declination and 0.0001 seconds for the equation of time. Other dates are calculated by NOAA.
+     */
+    SolarModel CHEBYSHEV = new ChebyshevSolarModel();
+
+    /**
+     * compute the sun position
+     *
+     * @param jd  julian date (UT)
+     * @param out array with at least 3 elements, receives the values at DECLINATION,
+     *            RIGHT_ASCENSION and EQUATION_OF_TIME
+     */
+    void compute(double jd, double[] out);
+}
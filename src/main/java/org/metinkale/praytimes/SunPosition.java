@@ -0,0 +1,156 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * Declination and equation of time of the sun, computed together in one evaluation
+ * <p>
+ * The default {@link SolarModel#USNO} model is evaluated inline with the obliquity of the day and
+ * {@link SolarModel#CHEBYSHEV} sets the sine of the declination directly, other models are called through
+ * {@link SolarModel}. Works in radians internally and keeps sine and cosine of the declination,
+ * so the callers do not have to convert degrees back and forth. Not thread-safe, use one instance per calculation,
+ * an instance can be reused with {@link #reset(EphemerisCache, SolarModel, double)}.
+ */
+final class SunPosition {
+    private EphemerisCache cache;
+    private SolarModel model;
+    private ChebyshevSolarModel table;
+    /**
+     * output of the sun model, allocated once for the first model which is not evaluated inline
+     */
+    private double[] position;
+    /**
+     * sine and cosine of the obliquity of the ecliptic
+     */
+    double sinE, cosE;
+
+    /**
+     * sine of the declination
+     */
+    double sinDecl;
+    /**
+     * cosine of the declination
+     */
+    double cosDecl;
+    /**
+     * equation of time in hours (-12 to 12)
+     */
+    double equation;
+
+    /**
+     * @param cache ephemeris cache, or null to evaluate the sun model directly
+     * @param model sun model, if there is no cache
+     * @param jdate julian date of the day, used for the obliquity of the ecliptic,
+     *              which changes too slow to be evaluated for every time of the day
+     */
+    SunPosition(EphemerisCache cache, SolarModel model, double jdate) {
+        reset(cache, model, jdate);
+    }
+
+    /**
+     * prepare this instance for another calculation
+     *
+     * @param cache ephemeris cache, or null to evaluate the sun model directly
+     * @param model sun model, if there is no cache
+     * @param jdate julian date of the day, used for the obliquity of the ecliptic
+     */
+    void reset(EphemerisCache cache, SolarModel model, double jdate) {
+        this.cache = cache;
+        this.model = model;
+        this.table = model instanceof ChebyshevSolarModel ? (ChebyshevSolarModel) model : null;
+        if (position == null && model != SolarModel.USNO) position = new double[3];
+        setDay(jdate);
+    }
+
+    /**
+     * @param jdate julian date of the day, used for the obliquity of the ecliptic
+     */
+    void setDay(double jdate) {
+        double e = UsnoSolarModel.E0 - UsnoSolarModel.E1 * (jdate - UsnoSolarModel.J2000);
+        sinE = Math.sin(e);
+        cosE = Math.cos(e);
+    }
+
+    /**
+     * @return true if the sun position is interpolated by a cache, which does not use the obliquity of the day
+     */
+    boolean isCached() {
+        return cache != null;
+    }
+
+    /**
+     * compute the sun position at the given julian date
+     *
+     * @param jd julian date
+     */
+    void compute(double jd) {
+        if (cache != null) {
+            cache.sunPosition(jd, this);
+            return;
+        }
+        if (table != null) {
+            table.sunPosition(jd, this, position);
+            return;
+        }
+        if (model != SolarModel.USNO) {
+            model.compute(jd, position);
+            double decl = position[SolarModel.DECLINATION];
+            sinDecl = Math.sin(decl);
+            cosDecl = Math.cos(decl);
+            equation = position[SolarModel.EQUATION_OF_TIME];
+            return;
+        }
+        double d = jd - UsnoSolarModel.J2000;
+        double g = UsnoSolarModel.G0 + UsnoSolarModel.G1 * d;
+        double q = UsnoSolarModel.Q0 + UsnoSolarModel.Q1 * d;
+        double l = q + UsnoSolarModel.C1 * Math.sin(g) + UsnoSolarModel.C2 * Math.sin(2 * g);
+        double sinL = Math.sin(l);
+        double cosL = Math.cos(l);
+
+        sinDecl = sinE * sinL;
+        cosDecl = Math.sqrt(1 - sinDecl * sinDecl);
+
+        double ra = Math.atan2(cosE * sinL, cosL);
+        equation = UsnoSolarModel.equationOfTime(q - ra);
+    }
+
+    /**
+     * set the sun position from interpolated values
+     *
+     * @param sinDecl  sine of the declination
+     * @param equation equation of time in hours
+     */
+    void set(double sinDecl, double equation) {
+        this.sinDecl = sinDecl;
+        this.cosDecl = Math.sqrt(1 - sinDecl * sinDecl);
+        this.equation = equation;
+    }
+
+    /**
+     * @return declination angle of sun in degrees
+     */
+    double declination() {
+        return DMath.arcsin(sinDecl);
+    }
+}
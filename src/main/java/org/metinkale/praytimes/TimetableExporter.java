@@ -0,0 +1,412 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDate;
+import java.util.Iterator;
+
+/**
+ * Streams timetables of many locations as CSV or JSON
+ * <p>
+ * The locations are consumed one after another from an iterator and each row is formatted directly into
+ * a byte buffer, so the memory usage only depends on the number of days, not on the size of the output.
+ * One row contains the times of one location and day, times are written as HH:mm (local time of the
+ * calculator of the location), times which do not exist are empty (CSV) or null (JSON).
+ * <pre>
+ * CSV:  name,date,imsak,fajr,sunrise,zawal,dhuhr,asr,asr_shafii,asr_hanafi,sunset,maghrib,isha,midnight
+ *       Berlin,2017-06-11,02:04,02:34,04:44,...
+ * JSON: [{"name":"Berlin","date":"2017-06-11","times":["02:04","02:34","04:44",...]},...]
+ * </pre>
+ * Instances are immutable and can be shared between threads.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TimetableExporter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /**
+     * a row is flushed before it is formatted, if less than this is left in the buffer,
+     * names longer than this are written in several parts
+     */
+    private static final int ROW_RESERVE = 512;
+    private static final byte[] CSV_HEADER = ascii("name,date,imsak,fajr,sunrise,zawal,dhuhr,asr,asr_shafii,asr_hanafi,"
+            + "sunset,maghrib,isha,midnight\n");
+    private static final byte[] JSON_NAME = ascii("{\"name\":");
+    private static final byte[] JSON_DATE = ascii(",\"date\":\"");
+    private static final byte[] JSON_TIMES = ascii("\",\"times\":[");
+    private static final byte[] NULL = ascii("null");
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    /**
+     * output format
+     */
+    public enum Format {
+        CSV, JSON
+    }
+
+    /**
+     * a location to export
+     */
+    public static final class Location {
+        final String name;
+        final PrayTimesCalculator calculator;
+        final double lat, lng, elv;
+
+        /**
+         * @param name       name of the location, written in each row
+         * @param calculator calculator for this location, its timezone is used for the times
+         * @param lat        Latitude
+         * @param lng        Longitude
+         * @param elv        Elevation
+         */
+        public Location(String name, PrayTimesCalculator calculator, double lat, double lng, double elv) {
+            this.name = name;
+            this.calculator = calculator;
+            this.lat = lat;
+            this.lng = lng;
+            this.elv = elv;
+        }
+    }
+
+    /**
+     * result of an export
+     */
+    public static final class Statistics {
+        private final long rows;
+        private final long bytes;
+        private final long nanos;
+
+        Statistics(long rows, long bytes, long nanos) {
+            this.rows = rows;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        /**
+         * @return number of rows written (locations * days)
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return number of bytes written
+         */
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return duration of the export in nanoseconds
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        /**
+         * @return throughput in rows per second
+         */
+        public double getRowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return rows + " rows, " + bytes + " bytes in " + nanos / 1000000 + " ms (" + Math.round(getRowsPerSecond()) + " rows/s)";
+        }
+    }
+
+    private final Format format;
+    private final int year, month, day, days;
+    /**
+     * dates of the range as yyyy-MM-dd, 10 bytes per day
+     */
+    private final byte[] dates;
+
+    /**
+     * @param format output format
+     * @param year   Year of the first day (e.g. 2017)
+     * @param month  Month of the first day (1-12)
+     * @param day    first Date/Day of Month
+     * @param days   number of days of each location
+     */
+    public TimetableExporter(Format format, int year, int month, int day, int days) {
+        if (days <= 0) throw new IllegalArgumentException("days must be positive");
+        this.format = format;
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.days = days;
+        this.dates = new byte[days * 10];
+        LocalDate date = LocalDate.of(year, month, day);
+        for (int d = 0; d < days; d++, date = date.plusDays(1)) {
+            int pos = d * 10;
+            pos = digits(dates, pos, date.getYear(), 4);
+            dates[pos++] = '-';
+            pos = digits(dates, pos, date.getMonthValue(), 2);
+            dates[pos++] = '-';
+            digits(dates, pos, date.getDayOfMonth(), 2);
+        }
+    }
+
+    /**
+     * writes the timetables of all locations into a stream, the stream is not closed
+     *
+     * @param locations locations
+     * @param out       stream
+     * @return statistics
+     * @throws IOException if the stream can not be written
+     */
+    public Statistics export(Iterator<Location> locations, final OutputStream out) throws IOException {
+        return export(locations, new Sink() {
+            @Override
+            void write(byte[] buffer, int length) throws IOException {
+                out.write(buffer, 0, length);
+            }
+        });
+    }
+
+    /**
+     * writes the timetables of all locations into a channel, the channel is not closed
+     *
+     * @param locations locations
+     * @param out       channel
+     * @return statistics
+     * @throws IOException if the channel can not be written
+     */
+    public Statistics export(Iterator<Location> locations, final WritableByteChannel out) throws IOException {
+        return export(locations, new Sink() {
+            private ByteBuffer wrapper;
+
+            @Override
+            void write(byte[] buffer, int length) throws IOException {
+                if (wrapper == null) wrapper = ByteBuffer.wrap(buffer);
+                wrapper.clear().limit(length);
+                while (wrapper.hasRemaining()) {
+                    out.write(wrapper);
+                }
+            }
+        });
+    }
+
+    private Statistics export(Iterator<Location> locations, Sink sink) throws IOException {
+        long start = System.nanoTime();
+        double[] times = new double[days * PrayTimesCalculator.TIMES_COUNT];
+        long rows = 0;
+        boolean first = true;
+
+        if (format == Format.CSV) {
+            sink.put(CSV_HEADER);
+        } else {
+            sink.put('[');
+        }
+        while (locations.hasNext()) {
+            Location location = locations.next();
+            location.calculator.computeRange(location.lat, location.lng, location.elv, year, month, day, days, times);
+            for (int d = 0; d < days; d++) {
+                sink.reserve(ROW_RESERVE);
+                if (format == Format.CSV) {
+                    csvRow(sink, location.name, d, times);
+                } else {
+                    if (!first) sink.put(',');
+                    jsonRow(sink, location.name, d, times);
+                }
+                first = false;
+                rows++;
+            }
+        }
+        if (format == Format.JSON) {
+            sink.put(']');
+        }
+        sink.flush();
+        return new Statistics(rows, sink.bytes, System.nanoTime() - start);
+    }
+
+    private void csvRow(Sink sink, String name, int d, double[] times) throws IOException {
+        csvString(sink, name);
+        sink.put(',');
+        sink.put(dates, d * 10, 10);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            sink.put(',');
+            int minutes = PrayTimesCalculator.toMinutes(times[d * PrayTimesCalculator.TIMES_COUNT + i]);
+            if (minutes >= 0) time(sink, minutes);
+        }
+        sink.put('\n');
+    }
+
+    private void jsonRow(Sink sink, String name, int d, double[] times) throws IOException {
+        sink.put(JSON_NAME);
+        jsonString(sink, name);
+        sink.put(JSON_DATE);
+        sink.put(dates, d * 10, 10);
+        sink.put(JSON_TIMES);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            if (i > 0) sink.put(',');
+            int minutes = PrayTimesCalculator.toMinutes(times[d * PrayTimesCalculator.TIMES_COUNT + i]);
+            if (minutes >= 0) {
+                sink.put('"');
+                time(sink, minutes);
+                sink.put('"');
+            } else {
+                sink.put(NULL);
+            }
+        }
+        sink.put(']').put('}');
+    }
+
+    /**
+     * write minutes of day as HH:mm
+     */
+    private static void time(Sink sink, int minutes) {
+        int h = minutes / 60;
+        int m = minutes % 60;
+        sink.put((char) ('0' + h / 10)).put((char) ('0' + h % 10)).put(':')
+                .put((char) ('0' + m / 10)).put((char) ('0' + m % 10));
+    }
+
+    /**
+     * write a CSV field, quoted if it contains a separator, quote or line break
+     */
+    private static void csvString(Sink sink, String s) throws IOException {
+        if (s == null) return;
+        boolean quote = false;
+        for (int i = 0; i < s.length() && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (quote) sink.put('"');
+        for (int i = 0; i < s.length(); i++) {
+            sink.reserve(ROW_RESERVE / 2);
+            char c = s.charAt(i);
+            if (c == '"') sink.put('"');
+            i = sink.putChar(s, i);
+        }
+        if (quote) sink.put('"');
+    }
+
+    /**
+     * write a JSON string with escaping, or null
+     */
+    private static void jsonString(Sink sink, String s) throws IOException {
+        if (s == null) {
+            sink.put(NULL);
+            return;
+        }
+        sink.put('"');
+        for (int i = 0; i < s.length(); i++) {
+            sink.reserve(ROW_RESERVE / 2);
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') {
+                sink.put('\\').put(c);
+            } else if (c < 0x20) {
+                sink.put('\\').put('u').put('0').put('0').put(HEX[c >> 4]).put(HEX[c & 15]);
+            } else {
+                i = sink.putChar(s, i);
+            }
+        }
+        sink.put('"');
+    }
+
+    private static int digits(byte[] buffer, int pos, int value, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            buffer[pos + i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + count;
+    }
+
+    private static byte[] ascii(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) s.charAt(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * buffered output, which encodes characters as UTF-8 without creating Strings or byte arrays
+     */
+    private abstract static class Sink {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private int pos;
+        long bytes;
+
+        abstract void write(byte[] buffer, int length) throws IOException;
+
+        void flush() throws IOException {
+            if (pos > 0) {
+                write(buffer, pos);
+                bytes += pos;
+                pos = 0;
+            }
+        }
+
+        void reserve(int length) throws IOException {
+            if (pos + length > buffer.length) flush();
+        }
+
+        Sink put(char c) {
+            buffer[pos++] = (byte) c;
+            return this;
+        }
+
+        void put(byte[] bytes) {
+            put(bytes, 0, bytes.length);
+        }
+
+        void put(byte[] bytes, int offset, int length) {
+            System.arraycopy(bytes, offset, buffer, pos, length);
+            pos += length;
+        }
+
+        /**
+         * write the character at index i as UTF-8, unpaired surrogates are written as '?'
+         *
+         * @return index of the last char used (i + 1 for surrogate pairs)
+         */
+        int putChar(String s, int i) {
+            int c = s.codePointAt(i);
+            if (c < 0x80) {
+                buffer[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[pos++] = (byte) (0xC0 | c >> 6);
+                buffer[pos++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isSurrogate((char) c)) {
+                buffer[pos++] = '?';
+            } else if (c < 0x10000) {
+                buffer[pos++] = (byte) (0xE0 | c >> 12);
+                buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[pos++] = (byte) (0x80 | c & 0x3F);
+            } else {
+                buffer[pos++] = (byte) (0xF0 | c >> 18);
+                buffer[pos++] = (byte) (0x80 | c >> 12 & 0x3F);
+                buffer[pos++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[pos++] = (byte) (0x80 | c & 0x3F);
+                return i + 1;
+            }
+            return i;
+        }
+    }
+}
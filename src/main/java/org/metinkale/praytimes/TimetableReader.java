@@ -0,0 +1,203 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+/**
+ * Reads timetables written by {@link TimetableWriter}
+ * <p>
+ * The file is memory-mapped, so opening is instant, the pages are shared with other processes reading the
+ * same file and lookups neither copy nor allocate. Files larger than 2 GB are mapped in several parts.
+ * <p>
+ * Instances are immutable and can be shared between threads. The mapping stays valid until the reader
+ * is garbage collected, close only releases the file handle.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TimetableReader implements Closeable {
+    private final FileChannel channel;
+    private final MappedByteBuffer[] parts;
+    private final int locationsPerPart;
+    private final int recordSize;
+    private final int unit;
+    private final long epochDay;
+    private final int days;
+    private final int locations;
+
+    /**
+     * opens and maps a timetable file
+     *
+     * @param file file
+     * @throws IOException if the file can not be read or is not a timetable file
+     */
+    public TimetableReader(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TimetableWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            long position = 0;
+            while (header.hasRemaining()) {
+                int read = channel.read(header, position);
+                if (read < 0) throw new IOException("not a timetable file");
+                position += read;
+            }
+            header.flip();
+            if (header.getInt() != TimetableWriter.MAGIC) throw new IOException("not a timetable file");
+            int version = header.getInt();
+            if (version != TimetableWriter.VERSION) throw new IOException("unsupported version " + version);
+            unit = header.getInt();
+            epochDay = header.getLong();
+            days = header.getInt();
+            locations = header.getInt();
+            recordSize = TimetableWriter.recordSize(days);
+
+            if (channel.size() < TimetableWriter.HEADER_SIZE + (long) locations * recordSize) {
+                throw new IOException("timetable file is truncated");
+            }
+            locationsPerPart = Math.max(1, Integer.MAX_VALUE / recordSize);
+            parts = new MappedByteBuffer[Math.max(1, (locations + locationsPerPart - 1) / locationsPerPart)];
+            for (int i = 0; i < parts.length; i++) {
+                long start = TimetableWriter.HEADER_SIZE + (long) i * locationsPerPart * recordSize;
+                int count = Math.min(locationsPerPart, locations - i * locationsPerPart);
+                parts[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, (long) count * recordSize);
+                parts[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of locations
+     */
+    public int getLocations() {
+        return locations;
+    }
+
+    /**
+     * @return number of days of each location
+     */
+    public int getDays() {
+        return days;
+    }
+
+    /**
+     * @return date of day 0
+     */
+    public LocalDate getStartDate() {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * @return true if the times are seconds of day, false if they are minutes of day
+     */
+    public boolean isSeconds() {
+        return unit == 1;
+    }
+
+    /**
+     * @param location index of the location
+     * @return Latitude
+     */
+    public double getLatitude(int location) {
+        return buffer(location).getDouble(offset(location));
+    }
+
+    /**
+     * @param location index of the location
+     * @return Longitude
+     */
+    public double getLongitude(int location) {
+        return buffer(location).getDouble(offset(location) + 8);
+    }
+
+    /**
+     * @param location index of the location
+     * @return Elevation
+     */
+    public double getElevation(int location) {
+        return buffer(location).getDouble(offset(location) + 16);
+    }
+
+    /**
+     * get a single time
+     *
+     * @param location index of the location
+     * @param day      day, 0 is {@link #getStartDate()}
+     * @param time     TIMES_ from Constants
+     * @return minutes or seconds of day (see {@link #isSeconds()}), or -1 if the time does not exist at this location
+     */
+    public int getTime(int location, int day, int time) {
+        if (time < 0 || time >= PrayTimesCalculator.TIMES_COUNT) throw new IndexOutOfBoundsException("time " + time);
+        return buffer(location).getInt(timeOffset(location, day) + time * 4);
+    }
+
+    /**
+     * get all times of a day
+     *
+     * @param location index of the location
+     * @param day      day, 0 is {@link #getStartDate()}
+     * @param times    array with at least 12 elements, receives the minutes or seconds of day (see {@link #isSeconds()}),
+     *                 or -1 if a time does not exist at this location
+     */
+    public void getTimes(int location, int day, int[] times) {
+        ByteBuffer buffer = buffer(location);
+        int offset = timeOffset(location, day);
+        for (int i = 0; i < PrayTimesCalculator.TIMES_COUNT; i++) {
+            times[i] = buffer.getInt(offset + i * 4);
+        }
+    }
+
+    /**
+     * closes the file, the mapped data stays readable
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer buffer(int location) {
+        if (location < 0 || location >= locations) throw new IndexOutOfBoundsException("location " + location);
+        return parts[location / locationsPerPart];
+    }
+
+    private int offset(int location) {
+        return (location % locationsPerPart) * recordSize;
+    }
+
+    private int timeOffset(int location, int day) {
+        if (day < 0 || day >= days) throw new IndexOutOfBoundsException("day " + day);
+        return offset(location) + TimetableWriter.LOCATION_SIZE + day * PrayTimesCalculator.TIMES_COUNT * 4;
+    }
+}
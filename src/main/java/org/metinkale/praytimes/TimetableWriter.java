@@ -0,0 +1,161 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes precomputed timetables into a binary file, which can be read with {@link TimetableReader}
+ * <p>
+ * The file consists of a header and one fixed size record per location:
+ * <pre>
+ * header (32 bytes):  int magic, int version, int unit (seconds per value: 60 or 1),
+ *                     long first epoch day, int days, int locations, int reserved
+ * record:             double latitude, double longitude, double elevation,
+ *                     days * 12 int times (minutes or seconds of day, -1 if a time does not exist)
+ * </pre>
+ * All values are little endian. The locations are written one after another, so the memory usage
+ * does not depend on the number of locations.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TimetableWriter implements Closeable {
+    static final int MAGIC = 0x54545450; // "PTTT"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int LOCATION_SIZE = 3 * 8;
+
+    private final FileChannel channel;
+    private final int year, month, day, days;
+    private final boolean seconds;
+    private final double[] times;
+    private final ByteBuffer record;
+    private int locations;
+
+    /**
+     * creates a new timetable file, an existing file is overwritten
+     *
+     * @param file    file
+     * @param year    Year of the first day (e.g. 2017)
+     * @param month   Month of the first day (1-12)
+     * @param day     first Date/Day of Month
+     * @param days    number of days of each location
+     * @param seconds true to store seconds of day, false to store minutes of day
+     * @throws IOException if the file can not be created
+     */
+    public TimetableWriter(Path file, int year, int month, int day, int days, boolean seconds) throws IOException {
+        if (days <= 0) throw new IllegalArgumentException("days must be positive");
+        this.year = year;
+        this.month = month;
+        this.day = day;
+        this.days = days;
+        this.seconds = seconds;
+        this.times = new double[days * PrayTimesCalculator.TIMES_COUNT];
+        this.record = ByteBuffer.allocateDirect(recordSize(days)).order(ByteOrder.LITTLE_ENDIAN);
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        try {
+            writeHeader();
+            channel.position(HEADER_SIZE);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * calculates and writes the timetable of the next location
+     *
+     * @param calculator calculator for this location, its timezone is used for the times
+     * @param lat        Latitude
+     * @param lng        Longitude
+     * @param elv        Elevation
+     * @return index of the location in the file
+     * @throws IOException if the file can not be written
+     */
+    public int add(PrayTimesCalculator calculator, double lat, double lng, double elv) throws IOException {
+        calculator.computeRange(lat, lng, elv, year, month, day, days, times);
+        record.clear();
+        record.putDouble(lat).putDouble(lng).putDouble(elv);
+        for (double time : times) {
+            record.putInt(seconds ? PrayTimesCalculator.toSeconds(time) : PrayTimesCalculator.toMinutes(time));
+        }
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        return locations++;
+    }
+
+    /**
+     * @return number of locations written so far
+     */
+    public int getLocations() {
+        return locations;
+    }
+
+    /**
+     * writes the number of locations into the header and closes the file
+     *
+     * @throws IOException if the file can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) return;
+        try {
+            writeHeader();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(seconds ? 1 : 60)
+                .putLong(PrayTimesCalculator.epochDay(year, month, day))
+                .putInt(days)
+                .putInt(locations)
+                .putInt(0);
+        header.flip();
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+    }
+
+    /**
+     * @param days number of days
+     * @return size of a location record in bytes
+     */
+    static int recordSize(int days) {
+        return LOCATION_SIZE + days * PrayTimesCalculator.TIMES_COUNT * 4;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+PrayTimes-Java: Prayer Times Java Calculator (ver 0.9)
+
+Copyright (C) 2007-2011 PrayTimes.org (JS Code ver 2.3)
+Copyright (C) 2017 Metin Kale (Java Code)
+
+Developer JS: Hamid Zarrabi-Zadeh
+Developer Java: Metin Kale
+
+License: GNU LGPL v3.0
+
+TERMS OF USE:
+	Permission is granted to use this code, with or
+	without modification, in any website or application
+	provided that credit is given to the original work
+	with a link back to PrayTimes.org.
+
+This program is distributed in the hope that it will
+be useful, but WITHOUT ANY WARRANTY.
+
+PLEASE DO NOT REMOVE THIS COPYRIGHT BLOCK.
+
+*/
+package org.metinkale.praytimes;
+
+/**
+ * see {@link SolarModel#USNO}
+ * <p>
+ * {@link SunPosition} evaluates the same formulas with the obliquity of the day, this class uses the obliquity
+ * at the given time.
+ */
+final class UsnoSolarModel implements SolarModel {
+    private static final long serialVersionUID = 1L;
+
+    static final double RAD = Math.PI / 180;
+    static final double J2000 = 2451545.0;
+    static final double G0 = 357.529 * RAD;
+    static final double G1 = 0.98560028 * RAD;
+    static final double Q0 = 280.459 * RAD;
+    static final double Q1 = 0.98564736 * RAD;
+    static final double C1 = 1.915 * RAD;
+    static final double C2 = 0.020 * RAD;
+    static final double E0 = 23.439 * RAD;
+    static final double E1 = 0.00000036 * RAD;
+
+    @Override
+    public void compute(double jd, double[] out) {
+        double d = jd - J2000;
+        double g = G0 + G1 * d;
+        double q = Q0 + Q1 * d;
+        double l = q + C1 * Math.sin(g) + C2 * Math.sin(2 * g);
+        double e = E0 - E1 * d;
+        double sinL = Math.sin(l);
+
+        double ra = Math.atan2(Math.cos(e) * sinL, Math.cos(l));
+        out[DECLINATION] = Math.asin(Math.sin(e) * sinL);
+        out[RIGHT_ASCENSION] = ra;
+        out[EQUATION_OF_TIME] = equationOfTime(q - ra);
+    }
+
+    /**
+     * @param eqt equation of time in radians
+     * @return equation of time normalized to hours (-12 to 12)
+     */
+    static double equationOfTime(double eqt) {
+        eqt -= 2 * Math.PI * Math.floor(eqt / (2 * Math.PI) + 0.5);
+        return eqt * (12 / Math.PI);
+    }
+
+    @Override
+    public int hashCode() {
+        return 1;
+    }
+
+    @Override
+    public String toString() {
+        return "USNO";
+    }
+
+    private Object readResolve() {
+        return USNO;
+    }
+}